@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.benchmarks
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.Opcodes
+import za.ac.sun.grapl.util.ResourceCompilationUtil.compileJavaFilesInMemory
+import za.ac.sun.grapl.util.ResourceCompilationUtil.fetchJavaFiles
+import java.io.File
+import java.nio.file.Files
+
+/**
+ * The programs the benchmarks are run over. These are either the test resource programs, compiled into memory, or
+ * synthetic classes with large methods generated with ASM.
+ */
+object BenchmarkPrograms {
+
+    /**
+     * The system property pointing to the test resource directory. This defaults to the project's test resources
+     * relative to the working directory.
+     */
+    const val RESOURCES_PROPERTY = "j2grapl.benchmark.resources"
+
+    /**
+     * The name of the suite of synthetic classes.
+     */
+    const val SYNTHETIC = "synthetic"
+
+    private const val SYNTHETIC_CLASSES = 8
+    private const val SYNTHETIC_METHODS = 4
+    private const val SYNTHETIC_STATEMENTS = 512
+
+    /**
+     * Returns the bytecode of each class in the given suite. A suite is either a directory under the test resources,
+     * e.g. "intraprocedural", or [SYNTHETIC].
+     *
+     * @param suite the name of the suite.
+     */
+    @JvmStatic
+    fun load(suite: String): List<ByteArray> {
+        if (suite == SYNTHETIC) {
+            return (0 until SYNTHETIC_CLASSES).map { i -> syntheticClass("synthetic/Synthetic$i", SYNTHETIC_METHODS, SYNTHETIC_STATEMENTS) }
+        }
+        val resources = File(System.getProperty(RESOURCES_PROPERTY, "src/test/resources"))
+        return compileJavaFilesInMemory(fetchJavaFiles(File(resources, suite))).values.toList()
+    }
+
+    /**
+     * Writes the given classes as class files to a new temporary directory.
+     *
+     * @param classes the bytecode of the classes.
+     * @return the directory holding the class files.
+     */
+    @JvmStatic
+    fun writeClassFiles(classes: List<ByteArray>): File {
+        val dir = Files.createTempDirectory("j2grapl-benchmark").toFile()
+        classes.forEachIndexed { i, c -> File(dir, "Class$i.class").writeBytes(c) }
+        return dir
+    }
+
+    /**
+     * Generates a class of static methods which each consist of a long run of arithmetic stores and if-statements.
+     * Each statement is given its own line so that the generated class resembles one compiled with debug information.
+     *
+     * @param name       the internal name of the class.
+     * @param methods    the number of methods to generate.
+     * @param statements the number of if-statements in each method.
+     */
+    @JvmStatic
+    fun syntheticClass(name: String, methods: Int, statements: Int): ByteArray {
+        val cw = ClassWriter(ClassWriter.COMPUTE_FRAMES)
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC + Opcodes.ACC_SUPER, name, null, "java/lang/Object", null)
+        cw.visitSource(name.substringAfterLast('/') + ".java", null)
+        var line = 1
+        for (m in 0 until methods) {
+            val mv = cw.visitMethod(Opcodes.ACC_PUBLIC + Opcodes.ACC_STATIC, "method$m", "(I)I", null, null)
+            mv.visitCode()
+            val start = Label()
+            var next = start
+            for (s in 0 until statements) {
+                // int b = a + s;
+                mv.visitLabel(next)
+                mv.visitLineNumber(line++, next)
+                mv.visitVarInsn(Opcodes.ILOAD, 0)
+                mv.visitLdcInsn(s)
+                mv.visitInsn(Opcodes.IADD)
+                mv.visitVarInsn(Opcodes.ISTORE, 1)
+                // if (b != 0) a++;
+                next = Label()
+                val condition = Label()
+                mv.visitLabel(condition)
+                mv.visitLineNumber(line++, condition)
+                mv.visitVarInsn(Opcodes.ILOAD, 1)
+                mv.visitJumpInsn(Opcodes.IFEQ, next)
+                val body = Label()
+                mv.visitLabel(body)
+                mv.visitLineNumber(line++, body)
+                mv.visitIincInsn(0, 1)
+            }
+            // return a;
+            mv.visitLabel(next)
+            mv.visitLineNumber(line++, next)
+            mv.visitVarInsn(Opcodes.ILOAD, 0)
+            mv.visitInsn(Opcodes.IRETURN)
+            val end = Label()
+            mv.visitLabel(end)
+            mv.visitLocalVariable("a", "I", null, start, end, 0)
+            mv.visitLocalVariable("b", "I", null, start, end, 1)
+            mv.visitMaxs(0, 0)
+            mv.visitEnd()
+        }
+        cw.visitEnd()
+        return cw.toByteArray()
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.benchmarks
+
+import org.openjdk.jmh.annotations.*
+import za.ac.sun.grapl.Cannon
+import za.ac.sun.grapl.hooks.IHook
+import za.ac.sun.grapl.sinks.CountingHook
+import za.ac.sun.grapl.sinks.NoOpHook
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures [Cannon.fire] end to end, from reading the class files to projecting their AST onto a [NoOpHook] or, for a
+ * dry-run, a [CountingHook].
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class CannonBenchmark {
+
+    @Param("intraprocedural", "interprocedural", BenchmarkPrograms.SYNTHETIC)
+    lateinit var suite: String
+
+    @Param(NO_OP, COUNTING)
+    lateinit var sink: String
+
+    private lateinit var classes: List<ByteArray>
+    private lateinit var classDir: File
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        classes = BenchmarkPrograms.load(suite)
+        classDir = BenchmarkPrograms.writeClassFiles(classes)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        classDir.deleteRecursively()
+    }
+
+    private fun newHook(): IHook = if (sink == COUNTING) CountingHook() else NoOpHook()
+
+    @Benchmark
+    fun fireFromDisk(): Int {
+        val hook = newHook()
+        Cannon(hook).apply {
+            load(classDir)
+            fire()
+        }
+        return hook.maxOrder()
+    }
+
+    @Benchmark
+    fun fireFromStream(): Int {
+        val hook = newHook()
+        Cannon(hook).fire(classes.iterator())
+        return hook.maxOrder()
+    }
+
+    @Benchmark
+    fun fireParallel(): Int {
+        val hook = newHook()
+        Cannon(hook).apply {
+            load(classDir)
+            fireParallel()
+        }
+        return hook.maxOrder()
+    }
+
+    companion object {
+        private const val NO_OP = "noop"
+        private const val COUNTING = "counting"
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.benchmarks
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.Label
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import org.openjdk.jmh.annotations.*
+import za.ac.sun.grapl.controllers.ASTController
+import za.ac.sun.grapl.controllers.MethodInfoController
+import za.ac.sun.grapl.domain.meta.ClassInfo
+import za.ac.sun.grapl.domain.meta.MetaDataCollector
+import za.ac.sun.grapl.sinks.NoOpHook
+import za.ac.sun.grapl.visitors.ast.ASTClassVisitor
+import za.ac.sun.grapl.visitors.init.InitialClassVisitor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the controller hot paths directly, without the visitors in front of them. The controllers are prepared from
+ * a synthetic method as both visitor passes would have left them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class ControllerBenchmark {
+
+    @Param("64", "1024")
+    var statements = 0
+
+    private lateinit var classInfo: ClassInfo
+    private lateinit var methodInfo: MethodInfoController
+    private lateinit var astController: ASTController
+    private var pseudoLines = 0
+    private var constant = 0
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        val collector = MetaDataCollector()
+        val classNode = ClassNode()
+        ClassReader(BenchmarkPrograms.syntheticClass(CLASS_NAME, 1, statements)).accept(classNode, 0)
+        classNode.accept(InitialClassVisitor(collector))
+        // Replay the AST pass as the cannon does so that every line also holds the new labels of the second pass
+        classNode.accept(ASTClassVisitor(collector, ASTController(NoOpHook())))
+        classInfo = collector.getClass(CLASS_NAME)!!
+        methodInfo = classInfo.getMethod("method0", "(I)I", Opcodes.ACC_PUBLIC + Opcodes.ACC_STATIC)!!
+        pseudoLines = methodInfo.pseudoLineNo
+    }
+
+    /**
+     * Starts projecting the synthetic method afresh so that the AST built up by the previous iteration does not carry
+     * over.
+     */
+    @Setup(Level.Iteration)
+    fun startMethod() {
+        astController = ASTController(NoOpHook())
+        astController.projectClassData(classInfo)
+        astController.pushNewMethod(methodInfo)
+        astController.associateLineNumberWithLabel(1, Label())
+    }
+
+    /**
+     * `b = a + c` which goes through [ASTController.pushVarInsnStore] and a single [ASTController.handleOperator].
+     */
+    @Benchmark
+    @ExperimentalStdlibApi
+    fun storeArithmetic(): Int {
+        astController.pushVarInsnLoad(0, Opcodes.ILOAD)
+        astController.pushConstInsnOperation(nextConstant())
+        astController.pushConstInsnOperation(Opcodes.IADD)
+        astController.pushVarInsnStore(1, Opcodes.ISTORE)
+        return astController.order
+    }
+
+    /**
+     * `b = (a + c) * a` which nests one [ASTController.handleOperator] under another.
+     */
+    @Benchmark
+    @ExperimentalStdlibApi
+    fun storeNestedArithmetic(): Int {
+        astController.pushVarInsnLoad(0, Opcodes.ILOAD)
+        astController.pushConstInsnOperation(nextConstant())
+        astController.pushConstInsnOperation(Opcodes.IADD)
+        astController.pushVarInsnLoad(0, Opcodes.ILOAD)
+        astController.pushConstInsnOperation(Opcodes.IMUL)
+        astController.pushVarInsnStore(1, Opcodes.ISTORE)
+        return astController.order
+    }
+
+    /**
+     * Looks up the jumps associated with every line of the synthetic method, as [ASTController] does for each line
+     * number it visits.
+     */
+    @Benchmark
+    fun getAssociatedJumps(): Int {
+        var jumps = 0
+        for (pseudoLineNo in 1..pseudoLines) jumps += methodInfo.getAssociatedJumps(pseudoLineNo).size
+        return jumps
+    }
+
+    /**
+     * Returns the next constant boxed so that it is pushed as an LDC constant rather than looked up as an opcode.
+     */
+    private fun nextConstant(): Any = constant++
+
+    companion object {
+        private const val CLASS_NAME = "synthetic/Controller"
+    }
+}
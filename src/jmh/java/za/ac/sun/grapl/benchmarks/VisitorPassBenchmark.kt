@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.benchmarks
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.tree.ClassNode
+import org.openjdk.jmh.annotations.*
+import za.ac.sun.grapl.controllers.ASTController
+import za.ac.sun.grapl.domain.meta.MetaDataCollector
+import za.ac.sun.grapl.sinks.NoOpHook
+import za.ac.sun.grapl.visitors.ast.ASTClassVisitor
+import za.ac.sun.grapl.visitors.init.InitialClassVisitor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures each visitor pass in isolation. The classes are decoded into [ClassNode]s beforehand, as [za.ac.sun.grapl.Cannon]
+ * does, so that only the visitors themselves are measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class VisitorPassBenchmark {
+
+    @State(Scope.Benchmark)
+    open class Programs {
+        @Param("intraprocedural", "interprocedural", BenchmarkPrograms.SYNTHETIC)
+        lateinit var suite: String
+
+        lateinit var classNodes: List<ClassNode>
+
+        @Setup(Level.Trial)
+        fun setUp() {
+            classNodes = BenchmarkPrograms.load(suite).map { c -> ClassNode().apply { ClassReader(c).accept(this, 0) } }
+        }
+    }
+
+    /**
+     * The AST pass relies on the information gathered by the initial pass so this runs the initial pass ahead of each
+     * measurement of the AST pass.
+     */
+    @State(Scope.Thread)
+    open class ScannedPrograms {
+        lateinit var collector: MetaDataCollector
+
+        @Setup(Level.Invocation)
+        fun scan(programs: Programs) {
+            collector = MetaDataCollector()
+            programs.classNodes.forEach { classNode -> classNode.accept(InitialClassVisitor(collector)) }
+        }
+    }
+
+    @Benchmark
+    fun initialPass(programs: Programs): MetaDataCollector {
+        val collector = MetaDataCollector()
+        programs.classNodes.forEach { classNode -> classNode.accept(InitialClassVisitor(collector)) }
+        return collector
+    }
+
+    @Benchmark
+    fun astPass(programs: Programs, scanned: ScannedPrograms): Int {
+        val astController = ASTController(NoOpHook())
+        programs.classNodes.forEach { classNode -> classNode.accept(ASTClassVisitor(scanned.collector, astController)) }
+        return astController.order
+    }
+}
@@ -18,46 +18,103 @@ package za.ac.sun.grapl
 import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.Logger
 import org.objectweb.asm.ClassReader
+import org.objectweb.asm.tree.ClassNode
 import za.ac.sun.grapl.controllers.ASTController
+import za.ac.sun.grapl.domain.enums.VisitorPasses
 import za.ac.sun.grapl.domain.meta.MetaDataCollector
 import za.ac.sun.grapl.hooks.IHook
+import za.ac.sun.grapl.metrics.IMetrics
+import za.ac.sun.grapl.sinks.BufferingHook
+import za.ac.sun.grapl.sinks.FragmentRecordingHook
+import za.ac.sun.grapl.sinks.MetricsHook
+import za.ac.sun.grapl.sinks.NoOpHook
+import za.ac.sun.grapl.sinks.SynchronizedHook
+import za.ac.sun.grapl.trace.TraceLog
+import za.ac.sun.grapl.util.ASTFragmentCache
+import za.ac.sun.grapl.util.IngestionManifest
+import za.ac.sun.grapl.util.ResourceCompilationUtil
 import za.ac.sun.grapl.util.ResourceCompilationUtil.compileJavaFile
 import za.ac.sun.grapl.util.ResourceCompilationUtil.compileJavaFiles
+import za.ac.sun.grapl.util.ResourceCompilationUtil.compileJavaFilesInMemory
+import za.ac.sun.grapl.util.ResourceCompilationUtil.fetchClassBytes
 import za.ac.sun.grapl.util.ResourceCompilationUtil.fetchClassFiles
+import za.ac.sun.grapl.util.ResourceCompilationUtil.fetchJavaFiles
+import za.ac.sun.grapl.util.ResourceCompilationUtil.readClassBytes
 import za.ac.sun.grapl.visitors.ast.ASTClassVisitor
 import za.ac.sun.grapl.visitors.init.InitialClassVisitor
 import java.io.File
-import java.io.FileInputStream
 import java.io.IOException
 import java.util.*
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
 import java.util.function.Consumer
 import java.util.jar.JarFile
+import java.util.stream.Stream
 
-class Cannon(private val hook: IHook) {
+/**
+ * Loads Java classes and fires them into the graph held by the given hook.
+ *
+ * @param hook          the hook used to build up the graph.
+ * @param manifest      if given, classes whose content has not changed since they were last recorded in the manifest
+ * are skipped and the manifest is saved after every fire. The manifest is only trusted while the graph still holds the
+ * ingestion it describes. Hooks offer no way to remove a subgraph, so if a recorded class has changed or is no longer
+ * loaded the graph is cleared and every class is fired again.
+ * @param fragmentCache if given, classes found in the cache are replayed into the hook without being visited and the
+ * operations of every other class are added to the cache.
+ * @param metrics       if given, firing, both visitor passes and every hook call are measured with these metrics.
+ * @param trace         if given, the instructions seen by both visitor passes are recorded in this trace. The trace is
+ * not closed by the cannon.
+ */
+class Cannon @JvmOverloads constructor(
+        hook: IHook,
+        private val manifest: IngestionManifest? = null,
+        private val fragmentCache: ASTFragmentCache? = null,
+        private val metrics: IMetrics? = null,
+        private val trace: TraceLog? = null
+) {
+    private val metricsHook = metrics?.let { MetricsHook(hook, it) }
+    private val hook: IHook = metricsHook ?: hook
     private val loadedFiles: LinkedList<File> = LinkedList()
+    private val loadedClasses: LinkedList<ByteArray> = LinkedList()
 
     /**
      * Loads a single Java class file or directory of class files into the cannon.
      *
-     * @param file the Java source/class file, directory of source/class files, or a JAR file.
+     * @param file            the Java source/class file, directory of source/class files, or a JAR file.
+     * @param compileInMemory if true, .java files are compiled into memory and their classes, including nested and
+     * anonymous classes, are loaded straight from the compiler without writing any class files.
      * @throws NullPointerException if the file is null
      * @throws IOException          In the case of a directory given, this would throw if .java files fail to compile
      */
+    @JvmOverloads
     @Throws(NullPointerException::class, IOException::class)
-    fun load(file: File) {
+    fun load(file: File, compileInMemory: Boolean = false) {
         if (file.isDirectory) {
-            // Any .java files will automatically be compiled
-            compileJavaFiles(file)
-            loadedFiles.addAll(fetchClassFiles(file))
+            if (compileInMemory) {
+                loadInMemory(file)
+            } else {
+                // Any .java files will automatically be compiled
+                compileJavaFiles(file)
+                loadedFiles.addAll(fetchClassFiles(file))
+            }
         } else if (file.isFile) {
             when {
+                file.name.endsWith(".java") && compileInMemory -> {
+                    loadedClasses.addAll(compileJavaFilesInMemory(listOf(file)).values)
+                }
                 file.name.endsWith(".java") -> {
                     compileJavaFile(file)
                     loadedFiles.add(File(file.absolutePath.replace(".java", ".class")))
                 }
                 file.name.endsWith(".jar") -> {
-                    val jar = JarFile(file)
-                    loadedFiles.addAll(fetchClassFiles(jar))
+                    JarFile(file).use { jar -> loadedClasses.addAll(fetchClassBytes(jar)) }
                 }
                 file.name.endsWith(".class") -> {
                     loadedFiles.add(file)
@@ -68,45 +125,488 @@ class Cannon(private val hook: IHook) {
         }
     }
 
+    /**
+     * Compiles the .java files under the directory into memory and loads the resulting classes along with any class
+     * files under the directory which were not produced from those sources. Class files are matched to the compiled
+     * classes by their path relative to the directory.
+     *
+     * @param dir the directory of source/class files.
+     */
+    @Throws(IOException::class)
+    private fun loadInMemory(dir: File) {
+        val compiledClasses = compileJavaFilesInMemory(fetchJavaFiles(dir), dir)
+        loadedClasses.addAll(compiledClasses.values)
+        val root = dir.absoluteFile.toPath()
+        fetchClassFiles(dir).filterTo(loadedFiles) { f ->
+            val binaryName = root.relativize(f.absoluteFile.toPath()).toString().removeSuffix(".class")
+                    .replace(File.separatorChar, '.')
+            !compiledClasses.containsKey(binaryName)
+        }
+    }
+
     /**
      * Fires all loaded Java classes currently loaded.
      */
     fun fire() {
-        loadedFiles.forEach(Consumer { f: File -> this.fire(f) })
+        val start = startTimer()
+        beginManifest()
+        clearGraphIfStale()
+        // Allows us to accumulate information about classes beforehand
+        val classMetaController = MetaDataCollector()
+        // Allows us to build up our AST using the connection held by the hook
+        val recorder = fragmentCache?.let { FragmentRecordingHook(hook, it.version) }
+        val astController = ASTController(recorder ?: hook)
+        loadedFiles.forEach(Consumer { f: File -> this.fire(f, classMetaController, astController, recorder) })
         loadedFiles.clear()
+        loadedClasses.forEach(Consumer { c: ByteArray -> this.fire(c, classMetaController, astController, recorder) })
+        loadedClasses.clear()
+        flushHook()
+        saveManifest()
+        metrics?.recordFire(System.nanoTime() - start)
     }
 
     /**
-     * Attempts to fire a file from the cannon.
+     * Fires each class as it is produced by the given iterator instead of loading all classes beforehand. Classes are
+     * pulled from the iterator on a separate discovery thread which reads ahead by at most the given number of classes
+     * and blocks until the cannon catches up, so that reading and parsing overlap. The meta data of each class is
+     * dropped once the class has been fired, so that memory use does not grow with the number of classes.
+     *
+     * The classes cannot be compared with the manifest before they are fired, so if a class recorded in the manifest
+     * turns out to have changed or is not in the iterator, the graph and the manifest are cleared and the fire fails.
+     * Firing the classes again then projects every class.
      *
-     * @param f the file to fire.
+     * @param classes  the bytecode of the classes to fire e.g. from [ResourceCompilationUtil.streamClassBytes].
+     * @param prefetch the maximum number of classes read ahead of the class being fired.
+     * @throws IllegalArgumentException if prefetch is less than 1.
+     * @throws IllegalStateException if a class recorded in the manifest has changed or is not in the iterator.
+     */
+    @JvmOverloads
+    @Throws(IllegalArgumentException::class, IllegalStateException::class)
+    fun fire(classes: Iterator<ByteArray>, prefetch: Int = DEFAULT_PREFETCH) = fire(classes, prefetch, MetaDataCollector())
+
+    /**
+     * Fires each class as it is produced by the given iterator, collecting the meta data of each class with the given
+     * collector.
      */
-    private fun fire(f: File) {
+    internal fun fire(classes: Iterator<ByteArray>, prefetch: Int, classMetaController: MetaDataCollector) {
+        require(prefetch >= 1) { "The number of classes to prefetch must be at least 1!" }
+        val start = startTimer()
+        beginManifest()
+        val queue = ArrayBlockingQueue<ByteArray>(prefetch)
+        val failure = AtomicReference<Throwable>()
+        val discovery = Thread({
+            try {
+                while (classes.hasNext()) queue.put(classes.next())
+            } catch (e: InterruptedException) {
+                // The cannon has stopped consuming classes
+                return@Thread
+            } catch (e: Throwable) {
+                failure.set(e)
+            }
+            try {
+                queue.put(END_OF_CLASSES)
+            } catch (e: InterruptedException) {
+                // The cannon has stopped consuming classes
+            }
+        }, "j2grapl-discovery")
+        discovery.isDaemon = true
+        discovery.start()
+
+        val recorder = fragmentCache?.let { FragmentRecordingHook(hook, it.version) }
+        val astController = ASTController(recorder ?: hook)
         try {
-            // Allows us to accumulate information about classes beforehand
-            val classMetaController = MetaDataCollector()
-            // Allows us to build up our AST using the connection held by the hook
-            val astController = ASTController(hook)
-            FileInputStream(f).use { fis ->
-                // Initialize services and controllers
-                astController.clear().resetOrder()
-
-                // First do an independent scan of the class
-                val cr = ClassReader(fis)
-                val rootVisitor = InitialClassVisitor(classMetaController)
-                cr.accept(rootVisitor, 0)
-
-                // Once initial data has been gathered, build the graph
-                val astVisitor = ASTClassVisitor(classMetaController, astController)
-                // ^ append new visitors here
-                cr.accept(astVisitor, 0)
+            var c = queue.take()
+            while (c !== END_OF_CLASSES) {
+                fire(c, classMetaController, astController, recorder)
+                // Only the class being fired is ever looked up
+                classMetaController.clear()
+                c = queue.take()
             }
+        } finally {
+            discovery.interrupt()
+        }
+        failure.get()?.let { throw it }
+        manifest?.unfiredClasses?.let { removed -> if (removed.isNotEmpty()) failStale(removed) }
+        flushHook()
+        saveManifest()
+        metrics?.recordFire(System.nanoTime() - start)
+    }
+
+    /**
+     * Fires each class as it is produced by the given stream, closing the stream once all classes have been fired.
+     *
+     * @param classes  the bytecode of the classes to fire e.g. from [ResourceCompilationUtil.streamClassBytes].
+     * @param prefetch the maximum number of classes read ahead of the class being fired.
+     * @throws IllegalArgumentException if prefetch is less than 1.
+     * @throws IllegalStateException if a class recorded in the manifest has changed or is not in the stream.
+     * @see fire
+     */
+    @JvmOverloads
+    @Throws(IllegalArgumentException::class, IllegalStateException::class)
+    fun fire(classes: Stream<ByteArray>, prefetch: Int = DEFAULT_PREFETCH) {
+        classes.use { fire(it.iterator(), prefetch) }
+    }
+
+    /**
+     * Fires all loaded Java classes currently loaded using a bounded pool of workers. Each worker owns its own
+     * [MetaDataCollector] and [ASTController] and projects each class into a fragment with orders relative to the
+     * class, as kept by the [ASTFragmentCache]. Once a class is projected, the exact range of orders it takes up is
+     * reserved and the fragment is written to the graph in one go through a [SynchronizedHook], so that concurrently
+     * projected ASTs never collide and a class reaches the graph either in full or not at all.
+     *
+     * If a class fails, the workers stop after the class they are busy with and the failure is rethrown once they have
+     * all stopped. The classes written before the failure are left in the graph.
+     *
+     * @param workers the maximum number of classes to fire concurrently.
+     * @throws IllegalArgumentException if the number of workers is less than 1.
+     * @throws IllegalStateException if the graph runs out of orders.
+     */
+    @JvmOverloads
+    @Throws(IllegalArgumentException::class, IllegalStateException::class)
+    fun fireParallel(workers: Int = Runtime.getRuntime().availableProcessors()) {
+        require(workers >= 1) { "The number of workers must be at least 1!" }
+        val start = startTimer()
+        beginManifest()
+        clearGraphIfStale()
+        val sink = SynchronizedHook(hook)
+        val nextOrder = AtomicLong(sink.maxOrder() + 1L)
+        val failed = AtomicBoolean()
+        val fileQueue = ConcurrentLinkedQueue(loadedFiles)
+        val classQueue = ConcurrentLinkedQueue(loadedClasses)
+        loadedFiles.clear()
+        loadedClasses.clear()
+        val pool = Executors.newFixedThreadPool(workers)
+        try {
+            val futures = (1..workers).map {
+                pool.submit(Callable {
+                    val classMetaController = MetaDataCollector()
+                    // Classes are only recorded by the worker and reach the graph once they are written by the sink
+                    val recorder = FragmentRecordingHook(NoOpHook(), fragmentCache?.version ?: ASTFragmentCache.DEFAULT_VERSION)
+                    val astController = ASTController(recorder)
+                    try {
+                        var f = fileQueue.poll()
+                        while (f != null && !failed.get()) {
+                            fire(f, classMetaController, astController, recorder, sink, nextOrder, failed)
+                            f = fileQueue.poll()
+                        }
+                        var c = classQueue.poll()
+                        while (c != null && !failed.get()) {
+                            fire(c, classMetaController, astController, recorder, sink, nextOrder, failed)
+                            c = classQueue.poll()
+                        }
+                    } catch (e: Throwable) {
+                        failed.set(true)
+                        throw e
+                    }
+                })
+            }
+            futures.forEach { future ->
+                try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+            flushHook()
+            saveManifest()
+            metrics?.recordFire(System.nanoTime() - start)
+        } finally {
+            // The workers stop at the next class rather than being interrupted in the middle of reading or writing one
+            failed.set(true)
+            pool.shutdown()
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)
+        }
+    }
+
+    /**
+     * Makes sure that any writes buffered by the hook have reached the graph once firing is complete.
+     */
+    private fun flushHook() {
+        (hook as? BufferingHook)?.flush()
+    }
+
+    /**
+     * Returns the time to measure from if metrics are being recorded, so that no time is read otherwise.
+     */
+    private fun startTimer() = if (metrics == null) 0L else System.nanoTime()
+
+    /**
+     * Ties the manifest to the graph about to be fired into, so that classes are only skipped if the graph holds them.
+     */
+    private fun beginManifest() = manifest?.beginFire(hook.maxOrder())
+
+    /**
+     * Hashes every loaded class and clears the graph if a class recorded in the manifest has changed or is no longer
+     * loaded, so that every class is fired again instead of leaving the old subgraph of the class in the graph.
+     */
+    private fun clearGraphIfStale() {
+        if (manifest == null || manifest.size == 0) return
+        val hashes = HashMap<String, String>()
+        loadedFiles.forEach { f ->
+            try {
+                val c = readClassBytes(f.toPath())
+                hashes[ClassReader(c).className] = IngestionManifest.hash(c)
+            } catch (e: IOException) {
+                // The class will fail again when fired and is treated as removed
+                logger.error("IOException encountered while hashing '" + f.name + "'.", e)
+            }
+        }
+        loadedClasses.forEach { c -> hashes[ClassReader(c).className] = IngestionManifest.hash(c) }
+        val stale = manifest.staleClasses(hashes)
+        if (stale.isEmpty()) return
+        logger.info("Clearing the graph to fire every class again as {} classes changed or were removed since they were last fired: {}", stale.size, stale)
+        hook.clearGraph()
+        manifest.clear()
+        beginManifest()
+    }
+
+    /**
+     * Fails a fire which found that classes recorded in the manifest changed or were removed once some classes had
+     * been skipped. The graph and the manifest are cleared so that firing the classes again projects every class.
+     *
+     * @throws IllegalStateException always.
+     */
+    private fun failStale(classes: Set<String>): Nothing {
+        hook.clearGraph()
+        manifest?.clear()
+        saveManifest()
+        throw IllegalStateException("The graph was cleared as $classes changed or were removed since they were last fired, fire the classes again")
+    }
+
+    private fun saveManifest() {
+        if (manifest == null) return
+        manifest.endFire(hook.maxOrder())
+        try {
+            manifest.save()
+        } catch (e: IOException) {
+            logger.error("IOException encountered while saving the ingestion manifest.", e)
+        }
+    }
+
+    /**
+     * Returns the content hash of the class if it is needed by the manifest or the fragment cache.
+     */
+    private fun hashOf(c: ByteArray) = if (manifest != null || fragmentCache != null) IngestionManifest.hash(c) else null
+
+    /**
+     * Determines if the class can be skipped as the manifest shows that it has already been fired with the same
+     * content.
+     */
+    private fun isUnchanged(cr: ClassReader, hash: String?): Boolean {
+        if (manifest == null || hash == null || !manifest.isUnchanged(cr.className, hash)) return false
+        logger.debug("Skipping unchanged class '{}'", cr.className)
+        manifest.record(cr.className, hash)
+        return true
+    }
+
+    /**
+     * Records the fired class in the manifest.
+     */
+    private fun recordFired(cr: ClassReader, hash: String?) {
+        if (manifest != null && hash != null) manifest.record(cr.className, hash)
+    }
+
+    /**
+     * Attempts to fire a file from the cannon.
+     *
+     * @param f                   the file to fire.
+     * @param classMetaController the meta data collector.
+     * @param astController       the AST controller.
+     * @param recorder            the hook recording fragments for the cache, if any.
+     */
+    private fun fire(f: File, classMetaController: MetaDataCollector, astController: ASTController, recorder: FragmentRecordingHook?) {
+        try {
+            fire(readClassBytes(f.toPath()), classMetaController, astController, recorder)
+        } catch (e: IOException) {
+            logger.error("IOException encountered while visiting '" + f.name + "'.", e)
+        }
+    }
+
+    /**
+     * Attempts to fire the bytecode of a class from the cannon. The order counter carries on from the previous class
+     * fired by the given controller so that only the first class needs to ask the hook for the max order.
+     *
+     * @param c                   the bytecode of the class to fire.
+     * @param classMetaController the meta data collector.
+     * @param astController       the AST controller.
+     * @param recorder            the hook recording fragments for the cache, if any.
+     */
+    private fun fire(c: ByteArray, classMetaController: MetaDataCollector, astController: ASTController, recorder: FragmentRecordingHook?) {
+        metrics?.recordBytesRead(c.size.toLong())
+        val cr = ClassReader(c)
+        val hash = hashOf(c)
+        if (isUnchanged(cr, hash)) return
+        if (manifest != null && hash != null && manifest.isStale(cr.className, hash)) failStale(setOf(cr.className))
+        // Initialize services and controllers, class meta data is kept for the whole program
+        astController.clear().resetOrder()
+        fire(cr, hash, classMetaController, astController, recorder)
+        recordFired(cr, hash)
+    }
+
+    /**
+     * Attempts to fire a file from the cannon on behalf of a worker.
+     *
+     * @param f                   the file to fire.
+     * @param classMetaController the worker's meta data collector.
+     * @param astController       the worker's AST controller.
+     * @param recorder            the worker's hook recording the fragment of each class.
+     * @param sink                the hook shared by all workers.
+     * @param nextOrder           the counter from which order ranges are reserved.
+     * @param failed              set once any worker has failed, after which no more classes are written.
+     */
+    private fun fire(f: File, classMetaController: MetaDataCollector, astController: ASTController,
+                     recorder: FragmentRecordingHook, sink: SynchronizedHook, nextOrder: AtomicLong, failed: AtomicBoolean) {
+        try {
+            fire(readClassBytes(f.toPath()), classMetaController, astController, recorder, sink, nextOrder, failed)
         } catch (e: IOException) {
             logger.error("IOException encountered while visiting '" + f.name + "'.", e)
         }
     }
 
+    /**
+     * Attempts to fire the bytecode of a class from the cannon on behalf of a worker. The class is taken from the
+     * fragment cache or projected into a fragment, after which its orders are reserved from the given counter and the
+     * fragment is written to the sink.
+     *
+     * @param c                   the bytecode of the class to fire.
+     * @param classMetaController the worker's meta data collector.
+     * @param astController       the worker's AST controller.
+     * @param recorder            the worker's hook recording the fragment of each class.
+     * @param sink                the hook shared by all workers.
+     * @param nextOrder           the counter from which order ranges are reserved.
+     * @param failed              set once any worker has failed, after which no more classes are written.
+     */
+    private fun fire(c: ByteArray, classMetaController: MetaDataCollector, astController: ASTController,
+                     recorder: FragmentRecordingHook, sink: SynchronizedHook, nextOrder: AtomicLong, failed: AtomicBoolean) {
+        metrics?.recordBytesRead(c.size.toLong())
+        val cr = ClassReader(c)
+        val hash = hashOf(c)
+        if (isUnchanged(cr, hash)) return
+        val start = startTimer()
+        val cached = if (hash == null) null else fragmentCache?.get(hash)
+        var operations = cached?.let { decodeCached(it, hash!!, nextOrder) }
+        if (operations == null) {
+            val fragment = project(cr, classMetaController, astController, recorder)
+            operations = ASTFragmentCache.decode(fragment, reserveOrders(nextOrder, ASTFragmentCache.orderSpan(fragment)))
+            if (hash != null) fragmentCache?.put(hash, fragment)
+        }
+        if (failed.get()) return
+        sink.exclusively {
+            operations.forEach { op -> op(sink) }
+            // The methods of the class were recorded without reaching the hook so their end is signalled at once
+            sink.endMethod()
+            metricsHook?.endClass()
+        }
+        metrics?.recordClass(System.nanoTime() - start)
+        recordFired(cr, hash)
+    }
+
+    /**
+     * Projects the class into a fragment whose orders are relative to the class.
+     *
+     * @throws IllegalStateException if the fragment could not be encoded.
+     */
+    private fun project(cr: ClassReader, classMetaController: MetaDataCollector, astController: ASTController,
+                        recorder: FragmentRecordingHook): ByteArray {
+        astController.clear().resetOrder(0)
+        recorder.beginClass(0)
+        fire(cr, classMetaController, astController)
+        // Only the class being fired is ever looked up
+        classMetaController.clear()
+        return recorder.endClass() ?: throw IllegalStateException("'${cr.className}' could not be encoded as a fragment")
+    }
+
+    /**
+     * Reserves orders for the cached fragment and decodes it, or returns null if the fragment turns out to be corrupt,
+     * in which case it is removed from the cache and its reserved orders are left unused.
+     */
+    private fun decodeCached(fragment: ByteArray, hash: String, nextOrder: AtomicLong): List<(IHook) -> Unit>? = try {
+        ASTFragmentCache.decode(fragment, reserveOrders(nextOrder, ASTFragmentCache.orderSpan(fragment)))
+    } catch (e: IOException) {
+        logger.warn("Discarding corrupt AST fragment of {}.", hash, e)
+        fragmentCache?.remove(hash)
+        null
+    }
+
+    /**
+     * Reserves the given number of orders from the counter and returns the first of them.
+     *
+     * @throws IllegalStateException if the orders would exceed the largest order a vertex can have.
+     */
+    private fun reserveOrders(nextOrder: AtomicLong, count: Int): Int {
+        val firstOrder = nextOrder.getAndAdd(count.toLong())
+        check(firstOrder + count <= Int.MAX_VALUE + 1L) { "The graph has run out of orders" }
+        return firstOrder.toInt()
+    }
+
+    /**
+     * Replays the class from the fragment cache if it is found there. Otherwise the class is visited and, if a recorder
+     * is given, the operations it produces are added to the cache.
+     *
+     * @param cr                  the reader of the class to fire.
+     * @param hash                the content hash of the class.
+     * @param classMetaController the collector to accumulate class information with.
+     * @param astController       the controller used to build up the AST.
+     * @param recorder            the hook recording fragments for the cache, if any.
+     */
+    private fun fire(cr: ClassReader, hash: String?, classMetaController: MetaDataCollector, astController: ASTController,
+                     recorder: FragmentRecordingHook?) {
+        val start = startTimer()
+        if (fragmentCache == null || recorder == null || hash == null) {
+            fire(cr, classMetaController, astController)
+        } else {
+            val firstOrder = astController.order
+            val replayedOrders = fragmentCache.replay(hash, hook, firstOrder, astController.remainingOrders)
+            if (replayedOrders >= 0) {
+                logger.debug("Replayed '{}' from the fragment cache", cr.className)
+                astController.advanceOrder(replayedOrders)
+            } else {
+                recorder.beginClass(firstOrder)
+                fire(cr, classMetaController, astController)
+                recorder.endClass()?.let { fragment -> fragmentCache.put(hash, fragment) }
+            }
+        }
+        metricsHook?.endClass()
+        metrics?.recordClass(System.nanoTime() - start)
+    }
+
+    /**
+     * Runs the visitors over the given class. The class is parsed into a [ClassNode] once so that each visitor pass
+     * replays the same instructions from memory rather than decoding the bytecode again. Replaying a method resets its
+     * labels, so each pass sees its own [org.objectweb.asm.Label] instances. Labels of different passes are matched by
+     * their pseudo line number, which both passes assign in the same order, never by identity.
+     *
+     * @param cr                  the reader of the class to visit.
+     * @param classMetaController the collector to accumulate class information with.
+     * @param astController       the controller used to build up the AST.
+     */
+    private fun fire(cr: ClassReader, classMetaController: MetaDataCollector, astController: ASTController) {
+        // Decode the bytecode only once and replay the class from memory for each pass
+        val classNode = ClassNode()
+        cr.accept(classNode, 0)
+        metrics?.recordMethods(classNode.methods.size)
+
+        // First do an independent scan of the class
+        var start = startTimer()
+        val rootVisitor = InitialClassVisitor(classMetaController, trace)
+        classNode.accept(rootVisitor)
+        metrics?.recordPass(VisitorPasses.INITIAL, System.nanoTime() - start)
+
+        // Once initial data has been gathered, build the graph
+        start = startTimer()
+        val astVisitor = ASTClassVisitor(classMetaController, astController, trace)
+        // ^ append new visitors here
+        classNode.accept(astVisitor)
+        metrics?.recordPass(VisitorPasses.AST, System.nanoTime() - start)
+    }
+
     companion object {
         val logger: Logger = LogManager.getLogger()
+
+        /**
+         * The default number of classes read ahead of the class being fired when firing a stream of classes.
+         */
+        const val DEFAULT_PREFETCH = 64
+        private val END_OF_CLASSES = ByteArray(0)
     }
 }
\ No newline at end of file
@@ -33,12 +33,12 @@ import za.ac.sun.grapl.domain.stack.operand.ConstantItem
 import za.ac.sun.grapl.domain.stack.operand.OperatorItem
 import za.ac.sun.grapl.domain.stack.operand.VariableItem
 import za.ac.sun.grapl.hooks.IHook
+import za.ac.sun.grapl.sinks.BufferingHook
 import za.ac.sun.grapl.util.ASMParserUtil
-import za.ac.sun.grapl.util.JumpStackUtil
+import za.ac.sun.grapl.util.OpcodeTable
 import java.util.*
 import java.util.function.Consumer
 import kotlin.collections.HashMap
-import kotlin.collections.HashSet
 
 class ASTController(
         private val hook: IHook
@@ -46,13 +46,18 @@ class ASTController(
 
     private val logger: Logger = LogManager.getLogger()
 
-    private val bHistory = Stack<BlockItem>()
-    private val allJumpsEncountered = HashSet<JumpBlock>()
-    private val ternPairStack = Stack<Pair<JumpInfo, JumpInfo>>()
+    private val bHistory = BlockHistory()
+    private val jumpHistory = ArrayList<JumpBlock>()
+    private val allJumpsEncountered = JumpRegistry()
+    private val ternPairStack = ArrayList<Pair<JumpInfo, JumpInfo>>()
     private val blockTernList = mutableListOf<StackItem>()
-    private val vertexStack = Stack<Pair<ASTVertex, Int>>()
+    private val vertexStack = ArrayDeque<Pair<ASTVertex, Int>>()
     private val pairedBlocks: MutableMap<IfCmpBlock, GotoBlock?> = HashMap()
-    private var order = 0
+    var order = 0
+        private set
+    private var orderBase = 0
+    private var orderLimit = Int.MAX_VALUE
+    private val unemittedBodyOrders = BitSet()
     private var currentLabel: Label? = null
     private var classPath: String? = null
     private var currentClass: FileVertex? = null
@@ -79,7 +84,7 @@ class ASTController(
             val namespaceList = namespace.split(".").toTypedArray()
             if (namespaceList.isNotEmpty()) nbv = populateNamespaceChain(namespaceList)
         }
-        currentClass = FileVertex(className, order++)
+        currentClass = FileVertex(className, nextOrder())
         // Join FILE and NAMESPACE_BLOCK if namespace is present
         if (!Objects.isNull(nbv)) {
             this.hook.joinFileVertexTo(currentClass, nbv)
@@ -95,13 +100,13 @@ class ASTController(
      * @return the final namespace block vertex in the chain (the one associated with the file)
      */
     private fun populateNamespaceChain(namespaceList: Array<String>): NamespaceBlockVertex? {
-        var prevNamespaceBlock: NamespaceBlockVertex? = NamespaceBlockVertex(namespaceList[0], namespaceList[0], order++)
+        var prevNamespaceBlock: NamespaceBlockVertex? = NamespaceBlockVertex(namespaceList[0], namespaceList[0], nextOrder())
         if (namespaceList.size == 1) return prevNamespaceBlock
         var currNamespaceBlock: NamespaceBlockVertex? = null
         val namespaceBuilder = StringBuilder(namespaceList[0])
         for (i in 1 until namespaceList.size) {
             namespaceBuilder.append("." + namespaceList[i])
-            currNamespaceBlock = NamespaceBlockVertex(namespaceList[i], namespaceBuilder.toString(), order++)
+            currNamespaceBlock = NamespaceBlockVertex(namespaceList[i], namespaceBuilder.toString(), nextOrder())
             this.hook.joinNamespaceBlocks(prevNamespaceBlock, currNamespaceBlock)
             prevNamespaceBlock = currNamespaceBlock
         }
@@ -114,6 +119,15 @@ class ASTController(
     fun pushNewMethod(methodInfo: MethodInfoController) {
         this.clear()
         this.methodInfo = methodInfo
+        ensureVariableCapacity(methodInfo.maxLocals)
+    }
+
+    /**
+     * Signals that the current method has been completely visited. If the hook buffers its writes, this gives it the
+     * chance to flush the method's AST.
+     */
+    fun endMethod() {
+        (hook as? BufferingHook)?.endMethod()
     }
 
     /**
@@ -125,53 +139,51 @@ class ASTController(
         val access = methodInfo.access
         // Create METHOD
         val shortName = methodName.substring(methodName.lastIndexOf('.') + 1)
-        currentMethod = MethodVertex(shortName, "$classPath.$methodName", methodSignature, lineNumber, order++)
+        currentMethod = MethodVertex(shortName, "$classPath.$methodName", methodSignature, lineNumber, nextOrder())
         // Join FILE and METHOD
         hook.joinFileVertexTo(currentClass, currentMethod)
+        val descriptor = ASMParserUtil.parseMethodDescriptor(methodSignature)
         // Create METHOD_PARAM_IN
-        ASMParserUtil.obtainParameters(methodSignature)
-                .forEach(Consumer { p: String ->
-                    hook.createAndAddToMethod(
-                            currentMethod,
-                            MethodParameterInVertex(
-                                    methodSignature,
-                                    ASMParserUtil.getReadableType(p),
-                                    ASMParserUtil.determineEvaluationStrategy(p, false),
-                                    p, lineNumber, order++))
-                })
+        descriptor.parameters.forEachIndexed { i, p ->
+            hook.createAndAddToMethod(
+                    currentMethod,
+                    MethodParameterInVertex(
+                            methodSignature,
+                            descriptor.readableParameters[i],
+                            descriptor.parameterEvaluationStrategies[i],
+                            p, lineNumber, nextOrder()))
+        }
         // Create METHOD_RETURN
-        val returnType = ASMParserUtil.obtainMethodReturnType(methodSignature)
-        val eval = ASMParserUtil.determineEvaluationStrategy(returnType, true)
         hook.createAndAddToMethod(
                 currentMethod,
-                MethodReturnVertex(ASMParserUtil.getReadableType(returnType), returnType, eval, lineNumber, order++)
+                MethodReturnVertex(descriptor.readableReturnType, descriptor.returnType, descriptor.returnEvaluationStrategy, lineNumber, nextOrder())
         )
         // Create MODIFIER
         ASMParserUtil.determineModifiers(access, methodName)
-                .forEach(Consumer { m: ModifierTypes -> hook.createAndAddToMethod(currentMethod, ModifierVertex(m, order++)) })
+                .forEach(Consumer { m: ModifierTypes -> hook.createAndAddToMethod(currentMethod, ModifierVertex(m, nextOrder())) })
     }
 
     /**
      * Handles visitVarInsn if the opcode is a store operation.
      *
-     * @param operation the store operation.
-     * @param varName   the variable name.
+     * @param opcode  the store operation.
+     * @param varName the variable name.
      */
     @ExperimentalStdlibApi
-    override fun pushVarInsnStore(varName: Int, operation: String) {
+    override fun pushVarInsnStore(varName: Int, opcode: Int) {
         val operandItem = operandStack.pop()!!
-        val varType = ASMParserUtil.getStackOperationType(operation)
+        val varType = OpcodeTable[opcode].stackType
         val variableItem = getOrPutVariable(varName, varType)
-        val storeVertex = BlockVertex("STORE", order++, 1, varType, currentLineNo)
+        val storeVertex = BlockVertex("STORE", nextOrder(), 1, varType, currentLineNo)
         val storeBlock = StoreBlock(order - 1, currentLabel)
         storeBlock.l = variableItem
         // Avoid attaching to loop roots
-        while (!bHistory.empty() && methodInfo.isLabelAssociatedWithLoops(bHistory.peek().label!!)) {
+        while (!bHistory.isEmpty() && methodInfo.isLabelAssociatedWithLoops(bHistory.peek().label!!)) {
             bHistory.pop()
         }
         // Check if this stores the result of a ternary operator
         val maybeTernaryRootVertices = getTernaryVerticesFromStack(vertexStack)
-        if (!bHistory.empty()) hook.createAndAssignToBlock(currentMethod, storeVertex, bHistory.peek().order)
+        if (!bHistory.isEmpty()) hook.createAndAssignToBlock(currentMethod, storeVertex, bHistory.peek().order)
         else hook.createAndAssignToBlock(currentMethod, storeVertex)
         val handlingTernaryStore = maybeTernaryRootVertices.isNullOrEmpty()
         if (handlingTernaryStore) {
@@ -183,9 +195,9 @@ class ASTController(
             storeTernaryOperatorBody(storeVertex, varType, maybeTernaryRootVertices!!)
         }
 
-        logger.debug("Pushing $storeBlock")
+        logger.debug("Pushing {}", storeBlock)
         bHistory.push(storeBlock)
-        val leftChild = LocalVertex(variableItem.id, variableItem.id, variableItem.type, currentLineNo, order++)
+        val leftChild = LocalVertex(variableItem.id, variableItem.id, variableItem.type, currentLineNo, nextOrder())
         hook.createAndAssignToBlock(currentMethod, leftChild, storeVertex.order)
         if (handlingTernaryStore) {
             // TODO: Check what happens if ternary happens within an expression
@@ -194,7 +206,7 @@ class ASTController(
         bHistory.pop()
     }
 
-    private fun getTernaryVerticesFromStack(vertexStack: Stack<Pair<ASTVertex, Int>>): Stack<Pair<ASTVertex, Int>>? {
+    private fun getTernaryVerticesFromStack(vertexStack: Collection<Pair<ASTVertex, Int>>): Stack<Pair<ASTVertex, Int>>? {
         val stack = Stack<Pair<ASTVertex, Int>>()
         vertexStack.takeIf { it.isNotEmpty() }?.filter { pair -> methodInfo.getAssociatedTernaryJump(pair.second) != null }?.apply { stack.addAll(this.reversed()) }
         return stack
@@ -210,26 +222,26 @@ class ASTController(
                     // Join hook to last body or the store block
                     hook.joinASTVerticesByOrder(lastBody!!.order, ternBlock.order, EdgeLabels.AST)
                     jumpRoots.push(ternaryRootVertices.removeLast().first)
-                    lastBody = BlockVertex("IF_BODY", order++, 1, "BOOLEAN", currentLineNo)
+                    lastBody = BlockVertex("IF_BODY", nextOrder(), 1, "BOOLEAN", currentLineNo)
                     hook.createVertex(lastBody)
                     hook.joinASTVerticesByOrder(jumpRoots.peek().order, lastBody.order, EdgeLabels.AST)
                 }
                 is GotoBlock -> {
-                    lastBody = BlockVertex("ELSE_BODY", order++, 1, "BOOLEAN", currentLineNo)
+                    lastBody = BlockVertex("ELSE_BODY", nextOrder(), 1, "BOOLEAN", currentLineNo)
                     hook.createVertex(lastBody)
                     hook.joinASTVerticesByOrder(jumpRoots.peek().order, lastBody.order, EdgeLabels.AST)
                 }
                 is ConstantItem -> {
                     operandStack.remove(ternBlock)
                     hook.createAndAssignToBlock(
-                            LiteralVertex(ternBlock.id, order++, 1, varType, currentLineNo),
+                            LiteralVertex(ternBlock.id, nextOrder(), 1, varType, currentLineNo),
                             lastBody!!.order)
                     if (lastBody.name == "ELSE_BODY") jumpRoots.pop()
                 }
                 is VariableItem -> {
                     operandStack.remove(ternBlock)
                     hook.createAndAssignToBlock(
-                            LocalVertex(ternBlock.id, ternBlock.id, ternBlock.type, currentLineNo, order++),
+                            LocalVertex(ternBlock.id, ternBlock.id, ternBlock.type, currentLineNo, nextOrder()),
                             lastBody!!.order)
                     if (lastBody.name == "ELSE_BODY") jumpRoots.pop()
                 }
@@ -240,16 +252,16 @@ class ASTController(
     private fun attachOperandItem(baseBlock: BlockVertex, operandItem: OperandItem, varType: String) {
         when (operandItem) {
             is OperatorItem -> {
-                vertexStack.push(Pair(baseBlock, pseudoLineNo))
+                vertexStack.addLast(Pair(baseBlock, pseudoLineNo))
                 handleOperator(operandItem)
             }
             is ConstantItem ->
                 hook.createAndAssignToBlock(
-                        LiteralVertex(operandItem.id, order++, 1, varType, currentLineNo),
+                        LiteralVertex(operandItem.id, nextOrder(), 1, varType, currentLineNo),
                         baseBlock.order)
             is VariableItem ->
                 hook.createAndAssignToBlock(
-                        LocalVertex(operandItem.id, operandItem.id, operandItem.type, currentLineNo, order++),
+                        LocalVertex(operandItem.id, operandItem.id, operandItem.type, currentLineNo, nextOrder()),
                         baseBlock.order)
         }
     }
@@ -266,16 +278,17 @@ class ASTController(
         currentLabel = start
 
         val totalAssociatedJumps = this.methodInfo.getAssociatedJumps(super.pseudoLineNo)
-        val jumpCountDifference = totalAssociatedJumps.filter { jumpInfo -> jumpInfo.jumpOp != "GOTO" }.size - JumpStackUtil.getAssociatedJumps(allJumpsEncountered, start).size
+        val jumpCountDifference = totalAssociatedJumps.filter { jumpInfo -> jumpInfo.jumpOp != "GOTO" }.size - allJumpsEncountered.getAssociatedJumps(start).size
 
-        if (JumpStackUtil.isJumpDestination(allJumpsEncountered, start)) handleJumpDestination(start)
+        if (allJumpsEncountered.isJumpDestination(start)) handleJumpDestination(start)
         if (jumpCountDifference >= 1) handleLoopDestination(start, super.pseudoLineNo, jumpCountDifference, totalAssociatedJumps)
 
         if (!bHistory.isEmpty() && bHistory.peek() is NestedBodyBlock) {
-            if (!this.hook.isASTVertex(bHistory.peek().order)) {
+            if (!isEmitted(bHistory.peek().order)) {
                 val newBlock = (bHistory.pop() as NestedBodyBlock).setLabel(start)
                 val bodyVertex = BlockVertex(newBlock.position.name, newBlock.order, 1, "VOID", line)
-                if (!bHistory.empty()) hook.createAndAssignToBlock(currentMethod, bodyVertex, bHistory.peek().order) else hook.createAndAssignToBlock(currentMethod, bodyVertex, 0)
+                markEmitted(bodyVertex.order)
+                if (!bHistory.isEmpty()) hook.createAndAssignToBlock(currentMethod, bodyVertex, bHistory.peek().order) else hook.createAndAssignToBlock(currentMethod, bodyVertex, 0)
                 bHistory.push(newBlock)
             }
         }
@@ -285,11 +298,13 @@ class ASTController(
      * Handles a line that is associated with a jump operation's destination.
      */
     private fun handleJumpDestination(jumpDestination: Label) {
-        val associatedJumps = JumpStackUtil.getAssociatedJumps(allJumpsEncountered, jumpDestination)
+        val associatedJumps = allJumpsEncountered.getAssociatedJumps(jumpDestination)
         val numIfCmpAssocs = associatedJumps.stream().filter { g: JumpBlock? -> g is IfCmpBlock }.count()
         val numGotoAssocs = associatedJumps.stream().filter { g: JumpBlock? -> g is GotoBlock }.count()
-        logger.debug("Encountered jump destination @ line $currentLineNo (${super.pseudoLineNo}) #IfCmp: $numIfCmpAssocs #Goto: $numGotoAssocs")
-        logger.debug("Associated jumps: $associatedJumps")
+        if (logger.isDebugEnabled) {
+            logger.debug("Encountered jump destination @ line {} ({}) #IfCmp: {} #Goto: {}", currentLineNo, super.pseudoLineNo, numIfCmpAssocs, numGotoAssocs)
+            logger.debug("Associated jumps: {}", associatedJumps)
+        }
         // Handles if-else-if chains
         if (numGotoAssocs + numIfCmpAssocs > 1 && numGotoAssocs >= numIfCmpAssocs && bHistory.size > 2) {
             for (i in 0 until numGotoAssocs * (1 + numIfCmpAssocs)) {
@@ -299,8 +314,7 @@ class ASTController(
             }
         }
         // Makes sure if-else bodies are on the same level
-        while (bHistory.size > 2 && bHistory[bHistory.size - 2] !is JumpBlock
-                && bHistory.stream().anyMatch { g: BlockItem? -> g is IfCmpBlock }) {
+        while (bHistory.size > 2 && bHistory[bHistory.size - 2] !is JumpBlock && bHistory.containsIfCmp()) {
             bHistory.pop()
             bHistory.pop()
         }
@@ -312,9 +326,9 @@ class ASTController(
                 if (peekedBlock.position == JumpState.IF_ROOT
                         && peekedBlock is IfCmpBlock
                         && pairedBlocks.containsKey(peekedBlock)
-                        && listOf("WHILE", "DO_WHILE").none { s -> s == methodInfo.getJumpRootName(bHistory.peek()?.label) }) {
+                        && listOf("WHILE", "DO_WHILE").none { s -> s == methodInfo.getJumpRootName(bHistory.peek().label) }) {
                     // Entering else-body (ignore if it's a loop)
-                    bHistory.push(NestedBodyBlock(order++, currentLabel, JumpState.ELSE_BODY))
+                    bHistory.push(newBodyBlock(currentLabel, JumpState.ELSE_BODY))
                 } else {
                     // Exiting if-root
                     bHistory.pop()
@@ -330,23 +344,27 @@ class ASTController(
     /**
      * Handles a loop jump destination e.g. while loop.
      */
-    private fun handleLoopDestination(start: Label, line: Int, jumpCountDifference: Int, totalAssociatedJumps: MutableList<JumpInfo>) {
-        logger.debug("$start (line $line) is associated with $jumpCountDifference jump(s) that haven't been encountered yet | $totalAssociatedJumps")
-        logger.debug("JumpInfo: ${totalAssociatedJumps.size} | Current assoc jumps ${JumpStackUtil.getAssociatedJumps(allJumpsEncountered, start).size}")
+    private fun handleLoopDestination(start: Label, line: Int, jumpCountDifference: Int, totalAssociatedJumps: List<JumpInfo>) {
+        if (logger.isDebugEnabled) {
+            logger.debug("$start (line $line) is associated with $jumpCountDifference jump(s) that haven't been encountered yet | $totalAssociatedJumps")
+            logger.debug("JumpInfo: ${totalAssociatedJumps.size} | Current assoc jumps ${allJumpsEncountered.getAssociatedJumps(start).size}")
+        }
         for (i in 0 until jumpCountDifference) {
             val destinationLineNumber = this.methodInfo.getPseudoLineNumber(totalAssociatedJumps.first().currLabel)
             val totalAssociatedJumpsWithDest = this.methodInfo.getAssociatedJumps(destinationLineNumber)
-            logger.debug("Line $line vs JumpOrigin $destinationLineNumber = ${if (line < destinationLineNumber) "jump is above" else "jump is below"} which is associated with $totalAssociatedJumpsWithDest")
+            if (logger.isDebugEnabled) logger.debug("Line {} vs JumpOrigin {} = {} which is associated with {}", line, destinationLineNumber,
+                    if (line < destinationLineNumber) "jump is above" else "jump is below", totalAssociatedJumpsWithDest)
             if (line < destinationLineNumber && totalAssociatedJumpsWithDest.none { j -> j.jumpOp == "GOTO" }) {
-                val condRoot = ControlStructureVertex("DO_WHILE", currentLineNo, order++, 1)
-                vertexStack.push(Pair(condRoot, pseudoLineNo))
+                val condRoot = ControlStructureVertex("DO_WHILE", currentLineNo, nextOrder(), 1)
+                vertexStack.addLast(Pair(condRoot, pseudoLineNo))
                 if (bHistory.isEmpty()) {
                     hook.createAndAssignToBlock(currentMethod, condRoot)
                 } else {
                     // Check if this nested body is not created to its if-root before this statement in Loop8 test
-                    if (!hook.isASTVertex(bHistory.peek().order)) {
+                    if (!isEmitted(bHistory.peek().order)) {
                         val bodyBlock = bHistory.pop()
                         val bodyVertex = BlockVertex("IF_BODY", bodyBlock.order, 1, "BOOLEAN", currentLineNo)
+                        markEmitted(bodyVertex.order)
                         hook.createAndAssignToBlock(currentMethod, bodyVertex, bHistory.peek().order)
                         hook.createAndAssignToBlock(currentMethod, condRoot, bodyVertex.order)
                         bHistory.push(bodyBlock)
@@ -356,13 +374,14 @@ class ASTController(
                 }
 
                 // We do not know the new label of the ifCmpBlock that we expect to appear later in the bytecode
-                val nestedBodyBlock = NestedBodyBlock(order++, currentLabel, JumpState.IF_BODY)
+                val nestedBodyBlock = newBodyBlock(currentLabel, JumpState.IF_BODY)
                 pushJumpBlock(IfCmpBlock(condRoot.order, null, start, JumpState.IF_ROOT))
                 bHistory.push(nestedBodyBlock)
 
                 // Account for the nested case
                 if (i != jumpCountDifference - 1 && jumpCountDifference > 1) {
                     val bodyVertex = BlockVertex(nestedBodyBlock.position.name, nestedBodyBlock.order, 1, "VOID", line)
+                    markEmitted(bodyVertex.order)
                     hook.createAndAssignToBlock(currentMethod, bodyVertex, bHistory.peek().order - 1)
                 }
             }
@@ -376,11 +395,11 @@ class ASTController(
      */
     override fun pushNullaryJumps(label: Label) {
         super.pushNullaryJumps(label)
-        val jumpHistory = JumpStackUtil.getJumpHistory(bHistory)
-        val lastJump = JumpStackUtil.getLastJump(bHistory) ?: allJumpsEncountered.maxBy { j -> j.order }
+        bHistory.copyJumpsTo(jumpHistory)
+        val lastJump = bHistory.getLastJump() ?: allJumpsEncountered.getLastJump()
         val currentBlock = GotoBlock(order, currentLabel, label, lastJump!!.position)
         if (blockTernList.isNotEmpty()) blockTernList.add(currentBlock)
-        logger.debug("Pushing $currentBlock")
+        logger.debug("Pushing {}", currentBlock)
         // Retain info learned from this method
         allJumpsEncountered.add(currentBlock)
         this.methodInfo.upsertJumpRootAtLine(super.pseudoLineNo, "GOTO")
@@ -392,7 +411,7 @@ class ASTController(
             // Read the last ifs and find which one is paired with this goto. Pop until I find the IfCmp paired
             while (!jumpHistory.isEmpty() && jumpHistory.size > 1) {
                 // This brings the pointer to the correct level in the case of if-root without else-body
-                val topBlock = jumpHistory.pop()
+                val topBlock = jumpHistory.removeAt(jumpHistory.size - 1)
                 if (topBlock is IfCmpBlock && pairedBlocks[topBlock] != null) {
                     if (pairedBlocks[topBlock] == currentBlock) break
                 }
@@ -400,13 +419,13 @@ class ASTController(
                 bHistory.pop()
             }
             if (bHistory.peek() is JumpBlock && (bHistory.peek() as JumpBlock).label !== label) {
-                bHistory.push(NestedBodyBlock(order++, label, JumpState.ELSE_BODY))
+                bHistory.push(newBodyBlock(label, JumpState.ELSE_BODY))
             }
-            logger.debug("Destination line for nullary jump: $destinationLineNumber vs current ${super.pseudoLineNo}")
+            if (logger.isDebugEnabled) logger.debug("Destination line for nullary jump: {} vs current {}", destinationLineNumber, super.pseudoLineNo)
             if (destinationLineNumber != -1 && destinationLineNumber < super.pseudoLineNo) {
                 // This is GOTO is part of a loop
                 pairedBlocks.filter { (_, v) -> v == currentBlock }.keys.forEach { pairedBlock ->
-                    logger.debug("This GOTO is part of a loop @ order $order associated with block $pairedBlock")
+                    if (logger.isDebugEnabled) logger.debug("This GOTO is part of a loop @ order {} associated with block {}", order, pairedBlock)
                     // The label may not be initialized yet and will be updated at a later stage but we can try search
                     // it based on the destination label
                     val name: String?
@@ -435,30 +454,31 @@ class ASTController(
     /**
      * Handles visitJumpInsn if the opcode is a binary jump.
      *
-     * @param jumpOp the jump operation.
+     * @param opcode the jump operation.
      * @param label  the label to jump to if the jump condition is satisfied.
      */
     @ExperimentalStdlibApi
-    override fun pushBinaryJump(jumpOp: String, label: Label): List<OperandItem> {
-        logger.debug("Recognized binary jump $jumpOp with label $label")
-        val jumpType = ASMParserUtil.getBinaryJumpType(jumpOp)
+    override fun pushBinaryJump(opcode: Int, label: Label): List<OperandItem> {
+        val jumpOp = OpcodeTable[opcode]
+        logger.debug("Recognized binary jump {} with label {}", jumpOp, label)
+        val jumpType = jumpOp.jumpType
         val maybeTernaryPair = methodInfo.getAssociatedTernaryJump(pseudoLineNo, ternPairStack)
-        ternPairStack.push(maybeTernaryPair)
+        if (maybeTernaryPair != null) ternPairStack.add(maybeTernaryPair)
         // If, as in the case of do-while, the if block happens after the body and thus the if-node already exists,
         // we should fetch the corresponding if-node
         val condRoot: ControlStructureVertex = if (!vertexStack.none { pair -> pair.first is ControlStructureVertex }) {
             // Determine if the last future jump block is correlated to this jump
-            val vertexLinePair = vertexStack.peek()
+            val vertexLinePair = vertexStack.peekLast()
             if (!methodInfo.isJumpVertexAssociatedWithGivenLine(vertexLinePair.second, pseudoLineNo))
-                ControlStructureVertex("IF", currentLineNo, order++, 1)
+                ControlStructureVertex("IF", currentLineNo, nextOrder(), 1)
             else {
-                vertexStack.pop().first as ControlStructureVertex
+                vertexStack.removeLast().first as ControlStructureVertex
             }
-        } else ControlStructureVertex("IF", currentLineNo, order++, 1)
+        } else ControlStructureVertex("IF", currentLineNo, nextOrder(), 1)
         this.methodInfo.upsertJumpRootAtLine(pseudoLineNo, condRoot.name)
 
-        val condBlock = BlockVertex(ASMParserUtil.parseAndFlipEquality(jumpOp).toString(), order++, 2, jumpType, currentLineNo)
-        logger.debug("Using ${if (condRoot.order == order - 2) "new" else "existing ${condRoot.name}"} vertex to represent IF_CMP")
+        val condBlock = BlockVertex(jumpOp.flippedEquality.toString(), nextOrder(), 2, jumpType, currentLineNo)
+        if (logger.isDebugEnabled) logger.debug("Using ${if (condRoot.order == order - 2) "new" else "existing ${condRoot.name}"} vertex to represent IF_CMP")
         // We can tell if it's a brand new conditional route by checking the order
         if (condRoot.order == order - 2) {
             val ifCmpBlock = IfCmpBlock(condRoot.order, currentLabel, label, JumpState.IF_ROOT)
@@ -474,39 +494,39 @@ class ASTController(
                 if (bHistory.isEmpty()) hook.createAndAssignToBlock(currentMethod, condRoot)
                 else hook.createAndAssignToBlock(currentMethod, condRoot, bHistory.peek().order)
                 pushJumpBlock(ifCmpBlock)
-                bHistory.push(NestedBodyBlock(order++, currentLabel, JumpState.IF_BODY))
+                bHistory.push(newBodyBlock(currentLabel, JumpState.IF_BODY))
             }
         } else {
             // We need to find the corresponding ifcmp block since its current label property is null by #associateLineNumberWithLabel
-            allJumpsEncountered.find { jumpBlock -> jumpBlock.order == condRoot.order }?.label = label
+            allJumpsEncountered.findByOrder(condRoot.order)?.label = label
             if (condRoot.name == "DO_WHILE") {
                 bHistory.pop()
                 bHistory.pop()
             }
         }
 
-        return buildJumpCondition(condBlock, condRoot, jumpOp, label, jumpType)
+        return buildJumpCondition(condBlock, condRoot, opcode, label, jumpType)
     }
 
     private fun prepareStackForTernaryJump(label: Label, condRoot: ControlStructureVertex) {
         logger.debug("Preparing the stack for a ternary jump")
         hook.createVertex(condRoot)
-        vertexStack.push(Pair(condRoot, pseudoLineNo))
+        vertexStack.addLast(Pair(condRoot, pseudoLineNo))
         allJumpsEncountered.add(IfCmpBlock(condRoot.order, currentLabel, label, JumpState.IF_ROOT))
     }
 
-    private fun buildJumpCondition(condBlock: BlockVertex, condRoot: ControlStructureVertex, jumpOp: String, label: Label, jumpType: String): List<OperandItem> {
+    private fun buildJumpCondition(condBlock: BlockVertex, condRoot: ControlStructureVertex, opcode: Int, label: Label, jumpType: String): List<OperandItem> {
         hook.createVertex(condBlock)
         hook.joinASTVerticesByOrder(condRoot.order, condBlock.order, EdgeLabels.AST)
         // Add if-cond operands
-        val ops = super.pushBinaryJump(jumpOp, label)
-        logger.debug("Jump arguments = [" + ops[0] + ", " + ops[1] + "]")
+        val ops = super.pushBinaryJump(opcode, label)
+        logger.debug("Jump arguments = [{}, {}]", ops[0], ops[1])
         ops.forEach(Consumer { op: OperandItem ->
             when (op) {
                 is ConstantItem ->
-                    hook.createAndAssignToBlock(LiteralVertex(op.id, order++, 1, jumpType, currentLineNo), condBlock.order)
+                    hook.createAndAssignToBlock(LiteralVertex(op.id, nextOrder(), 1, jumpType, currentLineNo), condBlock.order)
                 is VariableItem ->
-                    hook.createAndAssignToBlock(LocalVertex(op.id, op.id, op.type, currentLineNo, order++), condBlock.order)
+                    hook.createAndAssignToBlock(LocalVertex(op.id, op.id, op.type, currentLineNo, nextOrder()), condBlock.order)
             }
         })
         return ops
@@ -530,8 +550,8 @@ class ASTController(
         return operandItem
     }
 
-    override fun pushVarInsnLoad(varName: Int, operation: String): VariableItem {
-        val varIns = super.pushVarInsnLoad(varName, operation)
+    override fun pushVarInsnLoad(varName: Int, opcode: Int): VariableItem {
+        val varIns = super.pushVarInsnLoad(varName, opcode)
         if (blockTernList.isNotEmpty()) blockTernList.add(varIns)
         return varIns
     }
@@ -539,25 +559,43 @@ class ASTController(
     /**
      * Handles visitJumpInsn if the opcode is a unary jump.
      *
-     * @param jumpOp the jump operation.
+     * @param opcode the jump operation.
      * @param label  the label to jump to if the jump condition is satisfied.
      */
-    override fun pushUnaryJump(jumpOp: String, label: Label): OperandItem? {
-        logger.debug("Recognized unary jump $jumpOp with label $label")
-        val arg1 = super.pushUnaryJump(jumpOp, label)
-        logger.debug("Jump arguments = [$arg1]")
+    override fun pushUnaryJump(opcode: Int, label: Label): OperandItem? {
+        logger.debug("Recognized unary jump {} with label {}", OpcodeTable[opcode], label)
+        val arg1 = super.pushUnaryJump(opcode, label)
+        logger.debug("Jump arguments = [{}]", arg1)
         return arg1
     }
 
+    /**
+     * Reserves an order for a nested body whose vertex is only created once the body's first line is reached.
+     */
+    private fun newBodyBlock(label: Label?, position: JumpState): NestedBodyBlock {
+        unemittedBodyOrders.set(order - orderBase)
+        return NestedBodyBlock(nextOrder(), label, position)
+    }
+
+    private fun markEmitted(order: Int) {
+        if (order >= orderBase) unemittedBodyOrders.clear(order - orderBase)
+    }
+
+    /**
+     * Determines whether a vertex with the given order has been sent to the hook without querying the graph. Every
+     * order handed out by this controller is emitted straight away, except for those reserved for nested bodies.
+     */
+    private fun isEmitted(order: Int): Boolean =
+            order < this.order && (order < orderBase || !unemittedBodyOrders.get(order - orderBase))
+
     private fun pushJumpBlock(item: JumpBlock) {
         bHistory.push(item)
         allJumpsEncountered.add(item)
     }
 
     private fun tryPairGotoBlock(gotoBlock: GotoBlock) {
-        val listIterator: ListIterator<BlockItem> = bHistory.listIterator(bHistory.size)
-        while (listIterator.hasPrevious()) {
-            val prev = listIterator.previous()
+        for (i in bHistory.jumpCount - 1 downTo 0) {
+            val prev = bHistory.getJump(i)
             if (prev is IfCmpBlock) {
                 if (prev.destination !== gotoBlock.destination && !pairedBlocks.containsKey(prev)) {
                     pairedBlocks[prev] = gotoBlock
@@ -572,9 +610,9 @@ class ASTController(
      * @param operatorItem the operator stack item.
      */
     override fun handleOperator(operatorItem: OperatorItem) {
-        logger.debug("Next operator: $operatorItem")
-        val currBlock = BlockVertex(operatorItem.id, order++, 1, operatorItem.type, currentLineNo)
-        val prevBlock = vertexStack.pop().first as BlockVertex
+        logger.debug("Next operator: {}", operatorItem)
+        val currBlock = BlockVertex(operatorItem.id, nextOrder(), 1, operatorItem.type, currentLineNo)
+        val prevBlock = vertexStack.removeLast().first as BlockVertex
         hook.createVertex(currBlock)
         hook.joinASTVerticesByOrder(prevBlock.order, currBlock.order, EdgeLabels.AST)
 
@@ -582,18 +620,18 @@ class ASTController(
         val noOperands = 2
         for (i in 0 until noOperands) {
             val stackItem = operandStack.pop()
-            logger.debug("Next operand: $stackItem")
+            logger.debug("Next operand: {}", stackItem)
             when (stackItem) {
                 is OperatorItem -> {
-                    vertexStack.push(Pair(currBlock, pseudoLineNo))
+                    vertexStack.addLast(Pair(currBlock, pseudoLineNo))
                     handleOperator(stackItem)
                 }
                 is ConstantItem -> {
-                    val literalVertex = LiteralVertex(stackItem.id, order++, 1, stackItem.type, currentLineNo)
+                    val literalVertex = LiteralVertex(stackItem.id, nextOrder(), 1, stackItem.type, currentLineNo)
                     hook.createAndAssignToBlock(literalVertex, currBlock.order)
                 }
                 is VariableItem -> {
-                    val localVertex = LocalVertex(stackItem.id, stackItem.id, stackItem.type, currentLineNo, order++)
+                    val localVertex = LocalVertex(stackItem.id, stackItem.id, stackItem.type, currentLineNo, nextOrder())
                     hook.createAndAssignToBlock(localVertex, currBlock.order)
                 }
             }
@@ -612,6 +650,7 @@ class ASTController(
     override fun clear(): ASTController {
         super.clear()
         bHistory.clear()
+        jumpHistory.clear()
         vertexStack.clear()
         ternPairStack.clear()
         allJumpsEncountered.clear()
@@ -620,11 +659,66 @@ class ASTController(
     }
 
     /**
-     * Sets the current order counter to the max order found in the currently connected graph database.
+     * Sets the current order counter to the max order found in the currently connected graph database. Once this
+     * controller has emitted vertices, the max order is known locally and the graph database is not queried.
      */
     fun resetOrder(): ASTController {
-        order = this.hook.maxOrder()
+        return if (order > orderBase) resetOrder(orderBase + unemittedBodyOrders.previousClearBit(order - 1 - orderBase))
+        else resetOrder(this.hook.maxOrder())
+    }
+
+    /**
+     * Sets the current order counter to the given order e.g. the start of an order range reserved for a class.
+     *
+     * @param order the next order to assign.
+     * @param limit the order at which the range ends. Assigning an order at or beyond it fails.
+     */
+    fun resetOrder(order: Int, limit: Int = Int.MAX_VALUE): ASTController {
+        this.order = order
+        orderBase = order
+        orderLimit = limit
+        unemittedBodyOrders.clear()
+        return this
+    }
+
+    /**
+     * The number of orders which can still be assigned before the end of the current order range is reached.
+     */
+    val remainingOrders: Int
+        get() = orderLimit - order
+
+    /**
+     * Moves the order counter past orders that were emitted on behalf of this controller, e.g. when a class is replayed
+     * from an [za.ac.sun.grapl.util.ASTFragmentCache] instead of being visited.
+     *
+     * @param count the number of orders emitted.
+     * @throws IllegalStateException if the orders do not fit in the current order range.
+     */
+    @Throws(IllegalStateException::class)
+    fun advanceOrder(count: Int): ASTController {
+        check(count <= remainingOrders) { "$classPath exceeded its order range ending at $orderLimit" }
+        order += count
         return this
     }
 
+    /**
+     * Assigns the next order. An order beyond the current order range is never assigned, as it may already belong to
+     * another class, so that vertices of different classes are never joined.
+     *
+     * @throws IllegalStateException if the current order range is exhausted.
+     */
+    @Throws(IllegalStateException::class)
+    private fun nextOrder(): Int {
+        check(order < orderLimit) { "$classPath exceeded its order range ending at $orderLimit" }
+        return order++
+    }
+
+    companion object {
+        /**
+         * The version of the hook operations projected for a class. Bump it whenever a change to this controller or the
+         * visitors feeding it changes the operations of any class, so that cached fragments of older projections are no
+         * longer replayed.
+         */
+        const val PROJECTION_VERSION = 1
+    }
 }
@@ -32,17 +32,25 @@ data class MethodInfoController(
         var lineNumber: Int? = -1
 ) : OpStackController() {
 
-    private val allVariables = mutableListOf<LocalVarInfo>()
+    private var allVariables = arrayOfNulls<LocalVarInfo>(INITIAL_LOCALS)
+    var maxLocals = 0
     private val allJumps = LinkedHashSet<JumpInfo>()
-    private val ternaryPairs = LinkedHashMap<JumpInfo, JumpInfo>()
     private val jumpRoot = HashMap<Int, String>()
+    private val jumpsByPseudoLineNo = HashMap<Int, MutableList<JumpInfo>>()
+    private val unvisitedJumpDestinations = IdentityHashMap<Label, MutableList<JumpInfo>>()
+    private val unpairedConditionalJumps = ArrayDeque<JumpInfo>()
+    private val ternaryPairsByJumpLine = HashMap<Int, MutableList<Pair<JumpInfo, JumpInfo>>>()
+    private val ternaryPairsByGotoLine = HashMap<Int, Pair<JumpInfo, JumpInfo>>()
 
     fun addVariable(frameId: Int) {
-        allVariables.add(LocalVarInfo(frameId))
+        if (frameId >= allVariables.size) allVariables = allVariables.copyOf(maxOf(frameId + 1, allVariables.size * 2))
+        if (allVariables[frameId] == null) allVariables[frameId] = LocalVarInfo(frameId)
     }
 
+    fun getVariable(frameId: Int): LocalVarInfo? = allVariables.getOrNull(frameId)
+
     fun addVarDebugInfo(frameId: Int, debugName: String, descriptor: String, startLabel: Label, endLabel: Label) {
-        val existingVar = allVariables.find { it.frameId == frameId }
+        val existingVar = getVariable(frameId)
         if (existingVar != null) {
             existingVar.debugName = debugName
             existingVar.descriptor = descriptor
@@ -51,27 +59,44 @@ data class MethodInfoController(
         }
     }
 
-    fun addJump(jumpOp: String, destLabel: Label, currentLabel: Label) =
-            allJumps.add(JumpInfo(jumpOp, destLabel, currentLabel, super.pseudoLineNo))
-
+    fun addJump(jumpOp: String, destLabel: Label, currentLabel: Label): Boolean {
+        val jumpInfo = JumpInfo(jumpOp, destLabel, currentLabel, super.pseudoLineNo)
+        if (!allJumps.add(jumpInfo)) return false
+        val destLineNo = getPseudoLineNumber(destLabel)
+        if (destLineNo == -1) unvisitedJumpDestinations.getOrPut(destLabel) { mutableListOf() }.add(jumpInfo)
+        else jumpsByPseudoLineNo.getOrPut(destLineNo) { mutableListOf() }.add(jumpInfo)
+        if (jumpOp.contains("IF_")) unpairedConditionalJumps.addLast(jumpInfo)
+        return true
+    }
 
     fun addTernaryPair(gotoOp: String, destLabel: Label, currentLabel: Label) {
-        val lastJump = allJumps.findLast { !ternaryPairs.containsKey(it) && it.jumpOp.contains("IF_")}!!
+        val lastJump = unpairedConditionalJumps.pollLast()!!
         addJump(gotoOp, destLabel, currentLabel)
-        ternaryPairs[lastJump] = JumpInfo(gotoOp, destLabel, currentLabel, super.pseudoLineNo)
+        val ternaryPair = Pair(lastJump, JumpInfo(gotoOp, destLabel, currentLabel, super.pseudoLineNo))
+        ternaryPairsByJumpLine.getOrPut(lastJump.pseudoLineNo) { mutableListOf() }.add(ternaryPair)
+        ternaryPairsByGotoLine.putIfAbsent(ternaryPair.second.pseudoLineNo, ternaryPair)
     }
 
-    fun getAssociatedJumps(pseudoLineNo: Int): MutableList<JumpInfo> {
-        val assocLineInfo = getLineInfo(pseudoLineNo) ?: return emptyList<JumpInfo>().toMutableList()
-        return allJumps.filter { jInfo: JumpInfo -> assocLineInfo.associatedLabels.contains(jInfo.destLabel) }.toMutableList()
+    /**
+     * Indexes the jumps to the label by the pseudo line it is visited at. Forward jumps are added before their
+     * destination is visited and backward jumps after, so the jumps to each line stay in the order they were added.
+     */
+    override fun pushNewLabel(label: Label) {
+        super.pushNewLabel(label)
+        val jumps = unvisitedJumpDestinations.remove(label) ?: return
+        jumpsByPseudoLineNo.getOrPut(pseudoLineNo) { mutableListOf() }.addAll(jumps)
     }
 
-    fun getAssociatedTernaryJump(pseudoLineNo: Int): Pair<JumpInfo, JumpInfo>? {
-        return ternaryPairs.filter { it.value.pseudoLineNo == pseudoLineNo }.takeIf { it.isNotEmpty() }?.entries?.first()?.toPair()
-    }
+    /**
+     * Returns the jumps whose destination is at the given pseudo line, in the order they were added. Jumps are only
+     * added by the initial pass, but as the lookup is by pseudo line it holds for the labels of every pass.
+     */
+    fun getAssociatedJumps(pseudoLineNo: Int): List<JumpInfo> = jumpsByPseudoLineNo[pseudoLineNo] ?: emptyList()
+
+    fun getAssociatedTernaryJump(pseudoLineNo: Int): Pair<JumpInfo, JumpInfo>? = ternaryPairsByGotoLine[pseudoLineNo]
 
-    fun getAssociatedTernaryJump(pseudoLineNo: Int, blacklist: Stack<Pair<JumpInfo, JumpInfo>>): Pair<JumpInfo, JumpInfo>? {
-        return ternaryPairs.filter { ternPair -> ternPair.key.pseudoLineNo == pseudoLineNo && blacklist.none { it.first == ternPair.key } }.takeIf { it.isNotEmpty() }?.entries?.last()?.toPair()
+    fun getAssociatedTernaryJump(pseudoLineNo: Int, blacklist: Collection<Pair<JumpInfo, JumpInfo>>): Pair<JumpInfo, JumpInfo>? {
+        return ternaryPairsByJumpLine[pseudoLineNo]?.findLast { ternPair -> blacklist.none { it.first == ternPair.first } }
     }
 
     fun getPseudoLineNumber(label: Label): Int = getLineInfo(label)?.pseudoLineNumber ?: -1
@@ -88,9 +113,9 @@ data class MethodInfoController(
 
     fun findJumpLineBasedOnDestLabel(destLabel: Label): Int? {
         // Find associated labels with the dest label
-        val associatedLabels = getLineInfo(destLabel)?.associatedLabels ?: return null
+        val destLineNo = getLineInfo(destLabel)?.pseudoLineNumber ?: return null
         // Match this with a jump
-        val matchedJump = allJumps.find { jumpInfo -> associatedLabels.contains(jumpInfo.destLabel) } ?: return null
+        val matchedJump = getAssociatedJumps(destLineNo).firstOrNull() ?: return null
         // Get the current line of the jump current line
         return getLineInfo(matchedJump.currLabel)?.pseudoLineNumber
     }
@@ -18,38 +18,47 @@ package za.ac.sun.grapl.controllers
 import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.Logger
 import org.objectweb.asm.Label
-import org.objectweb.asm.util.ASMifier
+import org.objectweb.asm.Opcodes
 import za.ac.sun.grapl.domain.meta.LineInfo
 import za.ac.sun.grapl.domain.stack.OperandItem
+import za.ac.sun.grapl.domain.stack.OperandStack
 import za.ac.sun.grapl.domain.stack.operand.ConstantItem
 import za.ac.sun.grapl.domain.stack.operand.OperatorItem
 import za.ac.sun.grapl.domain.stack.operand.VariableItem
-import za.ac.sun.grapl.util.ASMParserUtil
+import za.ac.sun.grapl.util.OpcodeTable
 import java.util.*
 import kotlin.math.absoluteValue
 
-abstract class OpStackController(var allLines: HashSet<LineInfo> = HashSet()) : AbstractController {
+abstract class OpStackController : AbstractController {
 
-    private val logger: Logger = LogManager.getLogger()
-
-    val operandStack = Stack<OperandItem?>()
-    val variables = HashSet<VariableItem>()
+    val operandStack = OperandStack()
+    private var variableSlots = arrayOfNulls<VariableItem>(INITIAL_LOCALS)
+    val variables: List<VariableItem>
+        get() = variableSlots.filterNotNull()
     var pseudoLineNo = 0
+    private val linesByPseudoLineNo = ArrayList<LineInfo?>()
+    private val linesByLabel = IdentityHashMap<Label, LineInfo>()
 
     fun initializeMethod() {
         pseudoLineNo = 0
     }
 
-    fun pushNewLabel(label: Label) =
-            getLineInfo(++pseudoLineNo)?.apply { associatedLabels.add(label) }
-                    ?: allLines.add(LineInfo(pseudoLineNo).apply { associatedLabels.add(label) })
+    open fun pushNewLabel(label: Label) {
+        val lineInfo = getLineInfo(++pseudoLineNo) ?: LineInfo(pseudoLineNo).apply {
+            while (linesByPseudoLineNo.size <= pseudoLineNumber) linesByPseudoLineNo.add(null)
+            linesByPseudoLineNo[pseudoLineNumber] = this
+        }
+        // Every pass over the method replays it with new labels, each sharing the pseudo line of its earlier twin
+        linesByLabel[label] = lineInfo
+        lineInfo.associatedLabels.add(label)
+    }
 
-    protected fun getLineInfo(pseudoLineNo: Int): LineInfo? = allLines.find { lineInfo -> lineInfo.pseudoLineNumber == pseudoLineNo }
+    protected fun getLineInfo(pseudoLineNo: Int): LineInfo? = linesByPseudoLineNo.getOrNull(pseudoLineNo)
 
-    protected fun getLineInfo(label: Label): LineInfo? = allLines.find { lineInfo -> lineInfo.associatedLabels.contains(label) }
+    protected fun getLineInfo(label: Label): LineInfo? = linesByLabel[label]
 
     open fun pushConstInsnOperation(`val`: Any): ConstantItem {
-        val canonicalType = `val`.javaClass.canonicalName.replace("\\.".toRegex(), "/")
+        val canonicalType = `val`.javaClass.canonicalName.replace('.', '/')
         val className = canonicalType.substring(canonicalType.lastIndexOf("/") + 1)
         val stackItem: ConstantItem
         stackItem = if ("Integer" == className || "Long" == className || "Float" == className || "Double" == className) {
@@ -57,33 +66,23 @@ abstract class OpStackController(var allLines: HashSet<LineInfo> = HashSet()) :
         } else {
             ConstantItem(`val`.toString(), canonicalType)
         }
-        logger.debug("Pushing $stackItem")
+        if (logger.isDebugEnabled) logger.debug("Pushing {}", stackItem)
         operandStack.push(stackItem)
         return stackItem
     }
 
     open fun pushConstInsnOperation(opcode: Int): OperandItem? {
-        val line = ASMifier.OPCODES[opcode]
-        val type: String
-        var item: OperandItem? = null
-        type = if (line[0] == 'L') "LONG" else ASMParserUtil.getReadableType(line[0])
-        if (ASMParserUtil.isConstant(line)) {
-            val `val` = line.substring(line.indexOf('_') + 1).replace("M", "-")
-            item = ConstantItem(`val`, type)
-        } else if (ASMParserUtil.isOperator(line)) {
-            item = OperatorItem(line.substring(1), type)
-        }
+        val item = OpcodeTable[opcode].item
         if (Objects.nonNull(item)) {
-            logger.debug("Pushing $item")
+            if (logger.isDebugEnabled) logger.debug("Pushing {}", item)
             operandStack.push(item)
         }
         return item
     }
 
     open fun pushConstInsnOperation(opcode: Int, operand: Int): ConstantItem {
-        val type = ASMParserUtil.getReadableType(ASMifier.OPCODES[opcode][0])
-        val item = ConstantItem(operand.toString(), type)
-        logger.debug("Pushing $item")
+        val item = if (opcode == Opcodes.BIPUSH) getByteConstant(operand) else ConstantItem(operand.toString(), OpcodeTable[opcode].type)
+        if (logger.isDebugEnabled) logger.debug("Pushing {}", item)
         operandStack.push(item)
         return item
     }
@@ -97,36 +96,38 @@ abstract class OpStackController(var allLines: HashSet<LineInfo> = HashSet()) :
      */
     fun pushVarInc(`var`: Int, increment: Int) {
         val opType = "INTEGER"
-        val op = if (increment > 0) OperatorItem("ADD", opType) else OperatorItem("SUB", opType)
-        val varItem = VariableItem(`var`.toString(), opType)
-        val constItem = ConstantItem(increment.absoluteValue.toString(), opType)
-        operandStack.addAll(listOf(varItem, constItem, op))
-        pushVarInsnStore(`var`, "I${op.id}")
+        val opcode = if (increment > 0) Opcodes.IADD else Opcodes.ISUB
+        operandStack.push(VariableItem(`var`.toString(), opType))
+        operandStack.push(ConstantItem(increment.absoluteValue.toString(), opType))
+        operandStack.push(OpcodeTable[opcode].item)
+        pushVarInsnStore(`var`, opcode)
     }
 
     /**
      * Handles visitVarInsn if the opcode is a load operation.
      *
-     * @param varName   the variable name.
-     * @param operation the load operation.
+     * @param varName the variable name.
+     * @param opcode  the load operation.
      */
-    open fun pushVarInsnLoad(varName: Int, operation: String): VariableItem {
-        val variableItem = getOrPutVariable(varName, ASMParserUtil.getStackOperationType(operation))
-        logger.debug("Pushing $variableItem")
+    open fun pushVarInsnLoad(varName: Int, opcode: Int): VariableItem {
+        val variableItem = getOrPutVariable(varName, OpcodeTable[opcode].stackType)
+        if (logger.isDebugEnabled) logger.debug("Pushing {}", variableItem)
         operandStack.push(variableItem)
         return variableItem
     }
 
     fun getOrPutVariable(varName: Int, type: String): VariableItem {
-        val varString = varName.toString()
-        return variables.stream()
-                .filter { variable: VariableItem -> varString == variable.id }
-                .findFirst()
-                .orElseGet {
-                    val temp = VariableItem(varString, type)
-                    variables.add(temp)
-                    temp
-                }
+        ensureVariableCapacity(varName + 1)
+        return variableSlots[varName] ?: VariableItem(varName.toString(), type).apply { variableSlots[varName] = this }
+    }
+
+    /**
+     * Makes sure that variables can be held for the given number of frame slots without growing the variable table.
+     *
+     * @param maxLocals the number of local variable slots of the method.
+     */
+    fun ensureVariableCapacity(maxLocals: Int) {
+        if (maxLocals > variableSlots.size) variableSlots = variableSlots.copyOf(maxOf(maxLocals, variableSlots.size * 2))
     }
 
     open fun handleOperator(operatorItem: OperatorItem) {
@@ -140,7 +141,7 @@ abstract class OpStackController(var allLines: HashSet<LineInfo> = HashSet()) :
         }
     }
 
-    open fun pushVarInsnStore(varName: Int, operation: String) {
+    open fun pushVarInsnStore(varName: Int, opcode: Int) {
         when (val operandItem = operandStack.pop()) {
             is OperatorItem -> {
                 handleOperator(operandItem)
@@ -150,9 +151,9 @@ abstract class OpStackController(var allLines: HashSet<LineInfo> = HashSet()) :
 
     open fun pushNullaryJumps(label: Label) = Unit
 
-    open fun pushBinaryJump(jumpOp: String, label: Label): List<OperandItem> = listOfNotNull(operandStack.pop(), operandStack.pop()).asReversed()
+    open fun pushBinaryJump(opcode: Int, label: Label): List<OperandItem> = listOfNotNull(operandStack.pop(), operandStack.pop()).asReversed()
 
-    open fun pushUnaryJump(jumpOp: String, label: Label): OperandItem? = operandStack.pop()
+    open fun pushUnaryJump(opcode: Int, label: Label): OperandItem? = operandStack.pop()
 
     override fun toString(): String {
         return """
@@ -164,7 +165,25 @@ abstract class OpStackController(var allLines: HashSet<LineInfo> = HashSet()) :
 
     open fun clear(): AbstractController {
         operandStack.clear()
-        variables.clear()
+        Arrays.fill(variableSlots, null)
+        pseudoLineNo = 0
+        linesByPseudoLineNo.clear()
+        linesByLabel.clear()
         return this
     }
+
+    companion object {
+        private val logger: Logger = LogManager.getLogger(OpStackController::class.java)
+        const val INITIAL_LOCALS = 16
+        private val BYTE_CONSTANTS = arrayOfNulls<ConstantItem>(256)
+
+        /**
+         * Returns the shared item of a BIPUSH constant, creating it the first time the value is pushed.
+         */
+        private fun getByteConstant(operand: Int): ConstantItem {
+            val index = operand - Byte.MIN_VALUE
+            return BYTE_CONSTANTS[index]
+                    ?: ConstantItem(operand.toString(), OpcodeTable[Opcodes.BIPUSH].type).apply { BYTE_CONSTANTS[index] = this }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+package za.ac.sun.grapl.domain.enums
+
+enum class OpcodeKinds {
+    CONSTANT, OPERATOR, LOAD, STORE, NULLARY_JUMP, UNARY_JUMP, BINARY_JUMP, OTHER
+}
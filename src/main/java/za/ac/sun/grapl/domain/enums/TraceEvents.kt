@@ -0,0 +1,6 @@
+package za.ac.sun.grapl.domain.enums
+
+enum class TraceEvents {
+    METHOD, NAME, LABEL, LINE_NUMBER, INSN, INT_INSN, VAR_INSN, JUMP_INSN, LDC_INSN, IINC_INSN, METHOD_INSN, FIELD_INSN, TYPE_INSN,
+    INVOKE_DYNAMIC_INSN, TABLE_SWITCH_INSN, LOOKUP_SWITCH_INSN, MULTI_ANEW_ARRAY_INSN
+}
@@ -0,0 +1,5 @@
+package za.ac.sun.grapl.domain.enums
+
+enum class VisitorPasses {
+    INITIAL, AST
+}
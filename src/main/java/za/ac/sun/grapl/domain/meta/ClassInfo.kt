@@ -9,18 +9,16 @@ class ClassInfo(
         private val access: Int,
         val version: Int
 ) {
-    private val classMethods = mutableListOf<MethodInfoController>()
+    private val classMethods = HashMap<Triple<String, String, Int>, MethodInfoController>()
 
     fun addMethod(methodName: String, methodSignature: String, access: Int, lineNumber: Int): MethodInfoController {
         val methodInfo = MethodInfoController(methodName, methodSignature, access, lineNumber)
-        classMethods.add(methodInfo)
+        classMethods.putIfAbsent(Triple(methodName, methodSignature, access), methodInfo)
         return methodInfo
     }
 
-    fun getMethod(methodName: String, methodSignature: String, access: Int): MethodInfoController? {
-        val hashCode = 31 * (31 * methodName.hashCode() + methodSignature.hashCode()) + access.hashCode()
-        return classMethods.find { methodInfo -> methodInfo.hashCode() ==  hashCode }
-    }
+    fun getMethod(methodName: String, methodSignature: String, access: Int): MethodInfoController? =
+            classMethods[Triple(methodName, methodSignature, access)]
 
     fun clear() {
         classMethods.clear()
@@ -2,18 +2,21 @@ package za.ac.sun.grapl.domain.meta
 
 class MetaDataCollector {
 
-    private val allClasses = HashSet<ClassInfo>()
+    private val allClasses = HashMap<Pair<String, String>, ClassInfo>()
+
+    val size: Int
+        get() = allClasses.size
 
     fun putClass(fullName: String, access: Int, version: Int): ClassInfo {
         val classInfo = ClassInfo(obtainClassName(fullName), obtainNamespace(fullName), access, version)
-        allClasses.add(classInfo)
+        allClasses[Pair(classInfo.namespace, classInfo.className)] = classInfo
         return classInfo
     }
 
-    fun getClass(fullName: String): ClassInfo? {
-        var hashCode = obtainClassName(fullName).hashCode()
-        hashCode = 31 * hashCode + obtainNamespace(fullName).hashCode()
-        return allClasses.firstOrNull { it.hashCode() == hashCode }
+    fun getClass(fullName: String): ClassInfo? = allClasses[Pair(obtainNamespace(fullName), obtainClassName(fullName))]
+
+    fun clear() {
+        allClasses.clear()
     }
 
     private fun obtainClassName(fullName: String): String {
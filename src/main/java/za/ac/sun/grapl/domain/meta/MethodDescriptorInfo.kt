@@ -0,0 +1,22 @@
+package za.ac.sun.grapl.domain.meta
+
+import za.ac.sun.grapl.domain.enums.EvaluationStrategies
+
+/**
+ * A decoded method descriptor.
+ *
+ * @param parameters                    the raw parameter types e.g. Ljava/util/String.
+ * @param readableParameters            the readable parameter types e.g. String.
+ * @param parameterEvaluationStrategies the evaluation strategy of each parameter.
+ * @param returnType                    the raw return type.
+ * @param readableReturnType            the readable return type.
+ * @param returnEvaluationStrategy      the evaluation strategy of the return value.
+ */
+data class MethodDescriptorInfo(
+        val parameters: List<String>,
+        val readableParameters: List<String>,
+        val parameterEvaluationStrategies: List<EvaluationStrategies>,
+        val returnType: String,
+        val readableReturnType: String,
+        val returnEvaluationStrategy: EvaluationStrategies
+)
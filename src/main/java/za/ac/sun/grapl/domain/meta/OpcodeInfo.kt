@@ -0,0 +1,34 @@
+package za.ac.sun.grapl.domain.meta
+
+import za.ac.sun.grapl.domain.enums.Equality
+import za.ac.sun.grapl.domain.enums.OpcodeKinds
+import za.ac.sun.grapl.domain.stack.OperandItem
+
+/**
+ * Precomputed meta data of a single opcode.
+ *
+ * @param name             the mnemonic of the opcode e.g. IF_ICMPGE.
+ * @param kind             how the opcode is handled by the operand stack.
+ * @param type             the readable type of the opcode's operand e.g. INTEGER for ICONST_1.
+ * @param stackType        the type of an xLOAD or xSTORE operation, UNKNOWN otherwise.
+ * @param jumpType         the type of a binary jump, UNKNOWN otherwise.
+ * @param operator         the operator of an arithmetic opcode e.g. ADD for IADD, null otherwise.
+ * @param constant         the value of an xCONST_n opcode e.g. -1 for ICONST_M1, null otherwise.
+ * @param equality         the equality of a jump.
+ * @param flippedEquality  the opposite equality of a jump.
+ * @param item             the shared operand stack item pushed by a constant or operator opcode, null otherwise.
+ */
+data class OpcodeInfo(
+        val name: String,
+        val kind: OpcodeKinds,
+        val type: String,
+        val stackType: String,
+        val jumpType: String,
+        val operator: String?,
+        val constant: String?,
+        val equality: Equality,
+        val flippedEquality: Equality,
+        val item: OperandItem?
+) {
+    override fun toString() = name
+}
@@ -0,0 +1,74 @@
+package za.ac.sun.grapl.domain.stack
+
+import java.util.*
+
+/**
+ * An unsynchronized, array-backed stack of {@link OperandItem}s. Unlike {@link Stack}, pushing and popping does not
+ * lock and, once the backing array has grown to the deepest stack in a method, does not allocate.
+ */
+class OperandStack {
+
+    private var items = arrayOfNulls<OperandItem>(INITIAL_CAPACITY)
+
+    var size = 0
+        private set
+
+    fun isEmpty() = size == 0
+
+    fun isNotEmpty() = size != 0
+
+    fun push(item: OperandItem?): OperandItem? {
+        if (size == items.size) items = items.copyOf(size * 2)
+        items[size++] = item
+        return item
+    }
+
+    /**
+     * Removes and returns the item at the top of the stack.
+     *
+     * @throws EmptyStackException if the stack is empty.
+     */
+    fun pop(): OperandItem? {
+        if (size == 0) throw EmptyStackException()
+        val item = items[--size]
+        items[size] = null
+        return item
+    }
+
+    /**
+     * Returns the item at the top of the stack without removing it.
+     *
+     * @throws EmptyStackException if the stack is empty.
+     */
+    fun peek(): OperandItem? {
+        if (size == 0) throw EmptyStackException()
+        return items[size - 1]
+    }
+
+    /**
+     * Removes the item closest to the bottom of the stack which is equal to the given item.
+     *
+     * @return true if an item was removed, false if otherwise.
+     */
+    fun remove(item: OperandItem?): Boolean {
+        for (i in 0 until size) {
+            if (items[i] == item) {
+                System.arraycopy(items, i + 1, items, i, size - i - 1)
+                items[--size] = null
+                return true
+            }
+        }
+        return false
+    }
+
+    fun clear() {
+        Arrays.fill(items, 0, size, null)
+        size = 0
+    }
+
+    override fun toString(): String = (0 until size).joinToString(", ", "[", "]") { i -> items[i].toString() }
+
+    companion object {
+        private const val INITIAL_CAPACITY = 16
+    }
+}
@@ -0,0 +1,113 @@
+package za.ac.sun.grapl.domain.stack.block
+
+import za.ac.sun.grapl.domain.stack.BlockItem
+import java.util.*
+
+/**
+ * An unsynchronized, array-backed stack of the {@link BlockItem}s enclosing the current position in a method. Next to
+ * the blocks, the positions of the {@link JumpBlock}s are tracked as they are pushed and popped so that the last jump
+ * and the jump history are available without scanning the stack.
+ */
+class BlockHistory {
+
+    private var blocks = arrayOfNulls<BlockItem>(INITIAL_CAPACITY)
+    private var jumpPositions = IntArray(INITIAL_CAPACITY)
+    private var ifCmpCount = 0
+
+    var size = 0
+        private set
+
+    /**
+     * The number of {@link JumpBlock}s currently in the history.
+     */
+    var jumpCount = 0
+        private set
+
+    fun isEmpty() = size == 0
+
+    fun isNotEmpty() = size != 0
+
+    fun push(item: BlockItem): BlockItem {
+        if (size == blocks.size) blocks = blocks.copyOf(size * 2)
+        if (item is JumpBlock) {
+            if (jumpCount == jumpPositions.size) jumpPositions = jumpPositions.copyOf(jumpCount * 2)
+            jumpPositions[jumpCount++] = size
+            if (item is IfCmpBlock) ifCmpCount++
+        }
+        blocks[size++] = item
+        return item
+    }
+
+    /**
+     * Removes and returns the block at the top of the history.
+     *
+     * @throws EmptyStackException if the history is empty.
+     */
+    fun pop(): BlockItem {
+        if (size == 0) throw EmptyStackException()
+        val item = blocks[--size]!!
+        blocks[size] = null
+        if (item is JumpBlock) {
+            jumpCount--
+            if (item is IfCmpBlock) ifCmpCount--
+        }
+        return item
+    }
+
+    /**
+     * Returns the block at the top of the history without removing it.
+     *
+     * @throws EmptyStackException if the history is empty.
+     */
+    fun peek(): BlockItem {
+        if (size == 0) throw EmptyStackException()
+        return blocks[size - 1]!!
+    }
+
+    /**
+     * Returns the block at the given position where 0 is the bottom of the history.
+     */
+    operator fun get(index: Int): BlockItem {
+        if (index < 0 || index >= size) throw IndexOutOfBoundsException("Index: $index, Size: $size")
+        return blocks[index]!!
+    }
+
+    /**
+     * Returns the {@link JumpBlock} at the given position in the jump history where 0 is the oldest jump.
+     */
+    fun getJump(index: Int): JumpBlock {
+        if (index < 0 || index >= jumpCount) throw IndexOutOfBoundsException("Index: $index, Jumps: $jumpCount")
+        return blocks[jumpPositions[index]] as JumpBlock
+    }
+
+    /**
+     * Returns the latest {@link JumpBlock} in the history.
+     */
+    fun getLastJump(): JumpBlock? = if (jumpCount == 0) null else blocks[jumpPositions[jumpCount - 1]] as JumpBlock
+
+    /**
+     * Determines if any {@link IfCmpBlock} is in the history.
+     */
+    fun containsIfCmp() = ifCmpCount > 0
+
+    /**
+     * Replaces the contents of the given list with the {@link JumpBlock}s in the history, oldest first.
+     */
+    fun copyJumpsTo(destination: MutableList<JumpBlock>) {
+        destination.clear()
+        for (i in 0 until jumpCount) destination.add(blocks[jumpPositions[i]] as JumpBlock)
+    }
+
+    fun clear() {
+        Arrays.fill(blocks, 0, size, null)
+        size = 0
+        jumpCount = 0
+        ifCmpCount = 0
+    }
+
+    override fun toString(): String = (0 until size).joinToString(", ", "[", "]") { i -> blocks[i].toString() }
+
+    companion object {
+        private const val INITIAL_CAPACITY = 16
+    }
+}
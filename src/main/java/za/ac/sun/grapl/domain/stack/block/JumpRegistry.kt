@@ -0,0 +1,57 @@
+package za.ac.sun.grapl.domain.stack.block
+
+import org.objectweb.asm.Label
+import java.util.*
+
+/**
+ * Keeps track of the {@link JumpBlock}s encountered in a method, indexed by destination label and order.
+ */
+class JumpRegistry {
+
+    private val jumps = Collections.newSetFromMap(IdentityHashMap<JumpBlock, Boolean>())
+    private val jumpsByDestination = IdentityHashMap<Label, MutableList<JumpBlock>>()
+    private val jumpsByOrder = HashMap<Int, JumpBlock>()
+    private var lastJump: JumpBlock? = null
+
+    val size: Int
+        get() = jumps.size
+
+    fun add(jump: JumpBlock): Boolean {
+        if (!jumps.add(jump)) return false
+        jumpsByDestination.getOrPut(jump.destination) { mutableListOf() }.add(jump)
+        jumpsByOrder.putIfAbsent(jump.order, jump)
+        if (lastJump == null || jump.order > lastJump!!.order) lastJump = jump
+        return true
+    }
+
+    /**
+     * Returns all the {@link JumpBlock}s who share the given destination in the order they were added.
+     *
+     * @param destination the destination label to associate jumps by.
+     */
+    fun getAssociatedJumps(destination: Label): List<JumpBlock> = jumpsByDestination[destination] ?: emptyList()
+
+    /**
+     * Determines if the label is the destination of any registered jump.
+     *
+     * @param label the label to check destinations against.
+     */
+    fun isJumpDestination(label: Label) = jumpsByDestination.containsKey(label)
+
+    /**
+     * Returns the first {@link JumpBlock} registered with the given order.
+     */
+    fun findByOrder(order: Int): JumpBlock? = jumpsByOrder[order]
+
+    /**
+     * Returns the {@link JumpBlock} with the highest order.
+     */
+    fun getLastJump(): JumpBlock? = lastJump
+
+    fun clear() {
+        jumps.clear()
+        jumpsByDestination.clear()
+        jumpsByOrder.clear()
+        lastJump = null
+    }
+}
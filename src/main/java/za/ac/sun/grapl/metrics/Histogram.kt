@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * A thread-safe histogram of non-negative values such as latencies in nanoseconds. Values are counted in buckets which
+ * split each power of two into [SUB_BUCKETS] linear steps, so percentiles are reported within 12.5% of the recorded
+ * value while recording stays a few atomic increments.
+ */
+class Histogram {
+
+    private val buckets = AtomicLongArray(BUCKET_COUNT)
+    private val count = AtomicLong()
+    private val sum = AtomicLong()
+    private val max = AtomicLong()
+
+    /**
+     * The number of values recorded.
+     */
+    val totalCount: Long
+        get() = count.get()
+
+    /**
+     * The sum of the values recorded.
+     */
+    val totalSum: Long
+        get() = sum.get()
+
+    /**
+     * The largest value recorded.
+     */
+    val maxValue: Long
+        get() = max.get()
+
+    /**
+     * The mean of the values recorded or 0 if no values have been recorded.
+     */
+    val mean: Double
+        get() = count.get().let { n -> if (n == 0L) 0.0 else sum.get().toDouble() / n }
+
+    /**
+     * Records the given value. Negative values are recorded as 0.
+     *
+     * @param value the value to record.
+     */
+    fun record(value: Long) {
+        val v = maxOf(value, 0L)
+        buckets.incrementAndGet(indexOf(v))
+        count.incrementAndGet()
+        sum.addAndGet(v)
+        var current = max.get()
+        while (v > current && !max.compareAndSet(current, v)) current = max.get()
+    }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values fall, or 0 if no values have been
+     * recorded. The value reported is the upper bound of the bucket the percentile falls in, capped by the largest
+     * value recorded.
+     *
+     * @param quantile the fraction of values, between 0 and 1.
+     */
+    fun percentile(quantile: Double): Long {
+        require(quantile in 0.0..1.0) { "The quantile must be between 0 and 1!" }
+        val n = count.get()
+        if (n == 0L) return 0
+        val rank = maxOf(1L, Math.ceil(quantile * n).toLong())
+        var seen = 0L
+        for (i in 0 until BUCKET_COUNT) {
+            seen += buckets.get(i)
+            if (seen >= rank) return minOf(upperBoundOf(i), max.get())
+        }
+        return max.get()
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    fun reset() {
+        for (i in 0 until BUCKET_COUNT) buckets.set(i, 0)
+        count.set(0)
+        sum.set(0)
+        max.set(0)
+    }
+
+    override fun toString() =
+            "Histogram(count=$totalCount, mean=${"%.1f".format(mean)}, p50=${percentile(0.5)}, p99=${percentile(0.99)}, max=$maxValue)"
+
+    companion object {
+        private const val SUB_BUCKET_BITS = 3
+        const val SUB_BUCKETS = 1 shl SUB_BUCKET_BITS
+        private const val BUCKET_COUNT = 64 * SUB_BUCKETS
+
+        private fun indexOf(value: Long): Int {
+            if (value < SUB_BUCKETS) return value.toInt()
+            val shift = 63 - java.lang.Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS
+            return (shift + 1) * SUB_BUCKETS + ((value ushr shift) and (SUB_BUCKETS - 1).toLong()).toInt()
+        }
+
+        private fun upperBoundOf(index: Int): Long {
+            if (index < SUB_BUCKETS) return index.toLong()
+            val shift = index / SUB_BUCKETS - 1
+            val lowerBound = (SUB_BUCKETS + index % SUB_BUCKETS).toLong() shl shift
+            return lowerBound + (1L shl shift) - 1
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.metrics
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.enums.VertexLabels
+import za.ac.sun.grapl.domain.enums.VisitorPasses
+
+/**
+ * Receives the measurements taken while classes are ingested. Implementations are called from every worker firing
+ * classes and so must be thread-safe, and should be cheap as they are called for every hook call.
+ */
+interface IMetrics {
+
+    /**
+     * Records a call to one of the cannon's fire methods.
+     *
+     * @param nanos the time taken to fire all the classes.
+     */
+    fun recordFire(nanos: Long)
+
+    /**
+     * Records the bytes of a class read in to be fired, whether or not the class is then projected.
+     *
+     * @param bytes the size of the class file.
+     */
+    fun recordBytesRead(bytes: Long)
+
+    /**
+     * Records a class projected onto the graph, either by visiting it or replaying it from the fragment cache.
+     *
+     * @param nanos the time taken to project the class.
+     */
+    fun recordClass(nanos: Long)
+
+    /**
+     * Records the number of methods of a class being visited.
+     *
+     * @param methods the number of methods declared by the class.
+     */
+    fun recordMethods(methods: Int)
+
+    /**
+     * Records a visitor pass over a class.
+     *
+     * @param pass  the pass.
+     * @param nanos the time taken by the pass.
+     */
+    fun recordPass(pass: VisitorPasses, nanos: Long)
+
+    /**
+     * Records a vertex emitted to the hook.
+     *
+     * @param label the label of the vertex.
+     */
+    fun recordVertex(label: VertexLabels)
+
+    /**
+     * Records an edge emitted to the hook.
+     *
+     * @param label the label of the edge.
+     */
+    fun recordEdge(label: EdgeLabels)
+
+    /**
+     * Records a call to the hook.
+     *
+     * @param operation the name of the hook method called.
+     * @param nanos     the time taken by the hook.
+     */
+    fun recordHookCall(operation: String, nanos: Long)
+}
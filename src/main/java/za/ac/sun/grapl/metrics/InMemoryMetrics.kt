@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.metrics
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.enums.VertexLabels
+import za.ac.sun.grapl.domain.enums.VisitorPasses
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * An [IMetrics] which keeps counters and [Histogram]s in memory. All times are in nanoseconds.
+ */
+class InMemoryMetrics : IMetrics {
+
+    private val fireNanos = LongAdder()
+    private val bytesRead = LongAdder()
+    private val vertices = AtomicLongArray(VertexLabels.values().size)
+    private val edges = AtomicLongArray(EdgeLabels.values().size)
+    private val passLatencies = EnumMap<VisitorPasses, Histogram>(VisitorPasses::class.java)
+            .apply { VisitorPasses.values().forEach { pass -> put(pass, Histogram()) } }
+    private val hookLatencies = ConcurrentHashMap<String, Histogram>()
+
+    /**
+     * The time taken to project each class.
+     */
+    val classLatency = Histogram()
+
+    /**
+     * The number of methods of each class visited.
+     */
+    val methodsPerClass = Histogram()
+
+    /**
+     * The number of classes projected.
+     */
+    val classes: Long
+        get() = classLatency.totalCount
+
+    /**
+     * The number of methods of the classes visited.
+     */
+    val methods: Long
+        get() = methodsPerClass.totalSum
+
+    /**
+     * The number of class file bytes read.
+     */
+    val totalBytesRead: Long
+        get() = bytesRead.sum()
+
+    /**
+     * The total time spent firing classes.
+     */
+    val totalFireNanos: Long
+        get() = fireNanos.sum()
+
+    /**
+     * The number of classes projected per second spent firing, or 0 if no fire has completed.
+     */
+    val classesPerSecond: Double
+        get() = fireNanos.sum().let { nanos -> if (nanos == 0L) 0.0 else classes * TimeUnit.SECONDS.toNanos(1).toDouble() / nanos }
+
+    /**
+     * The total number of vertices emitted.
+     */
+    val totalVertices: Long
+        get() = (0 until vertices.length()).map { vertices.get(it) }.sum()
+
+    /**
+     * The total number of edges emitted.
+     */
+    val totalEdges: Long
+        get() = (0 until edges.length()).map { edges.get(it) }.sum()
+
+    /**
+     * The names of the hook methods called so far.
+     */
+    val hookOperations: Set<String>
+        get() = TreeSet(hookLatencies.keys)
+
+    fun vertexCount(label: VertexLabels) = vertices.get(label.ordinal)
+
+    fun edgeCount(label: EdgeLabels) = edges.get(label.ordinal)
+
+    fun passLatency(pass: VisitorPasses): Histogram = passLatencies.getValue(pass)
+
+    /**
+     * Returns the latencies of calls to the given hook method, or null if it has not been called.
+     */
+    fun hookLatency(operation: String): Histogram? = hookLatencies[operation]
+
+    override fun recordFire(nanos: Long) = fireNanos.add(nanos)
+
+    override fun recordBytesRead(bytes: Long) = bytesRead.add(bytes)
+
+    override fun recordClass(nanos: Long) = classLatency.record(nanos)
+
+    override fun recordMethods(methods: Int) = methodsPerClass.record(methods.toLong())
+
+    override fun recordPass(pass: VisitorPasses, nanos: Long) = passLatency(pass).record(nanos)
+
+    override fun recordVertex(label: VertexLabels) {
+        vertices.incrementAndGet(label.ordinal)
+    }
+
+    override fun recordEdge(label: EdgeLabels) {
+        edges.incrementAndGet(label.ordinal)
+    }
+
+    override fun recordHookCall(operation: String, nanos: Long) =
+            hookLatencies.computeIfAbsent(operation) { Histogram() }.record(nanos)
+
+    /**
+     * Returns every measurement by a flat, dotted name e.g. "hook.createVertex.p99". Histograms are summarised by
+     * their count, mean, 50th, 90th and 99th percentiles and maximum.
+     */
+    fun snapshot(): SortedMap<String, Number> {
+        val snapshot = TreeMap<String, Number>()
+        snapshot["classes"] = classes
+        snapshot["classesPerSecond"] = classesPerSecond
+        snapshot["bytesRead"] = totalBytesRead
+        snapshot["fireNanos"] = totalFireNanos
+        snapshot["methods"] = methods
+        snapshot["vertices"] = totalVertices
+        snapshot["edges"] = totalEdges
+        VertexLabels.values().filter { vertexCount(it) > 0 }.forEach { snapshot["vertices.$it"] = vertexCount(it) }
+        EdgeLabels.values().filter { edgeCount(it) > 0 }.forEach { snapshot["edges.$it"] = edgeCount(it) }
+        summarise(snapshot, "methodsPerClass", methodsPerClass)
+        summarise(snapshot, "classNanos", classLatency)
+        passLatencies.forEach { (pass, histogram) -> summarise(snapshot, "pass.$pass", histogram) }
+        hookLatencies.forEach { (operation, histogram) -> summarise(snapshot, "hook.$operation", histogram) }
+        return snapshot
+    }
+
+    private fun summarise(snapshot: MutableMap<String, Number>, name: String, histogram: Histogram) {
+        snapshot["$name.count"] = histogram.totalCount
+        snapshot["$name.mean"] = histogram.mean
+        snapshot["$name.p50"] = histogram.percentile(0.5)
+        snapshot["$name.p90"] = histogram.percentile(0.9)
+        snapshot["$name.p99"] = histogram.percentile(0.99)
+        snapshot["$name.max"] = histogram.maxValue
+    }
+
+    /**
+     * Discards all measurements.
+     */
+    fun reset() {
+        fireNanos.reset()
+        bytesRead.reset()
+        for (i in 0 until vertices.length()) vertices.set(i, 0)
+        for (i in 0 until edges.length()) edges.set(i, 0)
+        classLatency.reset()
+        methodsPerClass.reset()
+        passLatencies.values.forEach { it.reset() }
+        hookLatencies.clear()
+    }
+
+    override fun toString() = "InMemoryMetrics${snapshot()}"
+}
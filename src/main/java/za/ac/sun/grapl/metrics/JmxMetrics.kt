@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.metrics
+
+import java.io.Closeable
+import java.lang.management.ManagementFactory
+import java.util.*
+import javax.management.*
+
+/**
+ * An [IMetrics] which keeps its measurements in an [InMemoryMetrics] and publishes their [InMemoryMetrics.snapshot] as
+ * read-only attributes of an MBean on the platform MBean server, e.g. for JConsole or a JMX exporter. The MBean also
+ * offers a "reset" operation. Closing the metrics unregisters the MBean.
+ *
+ * @param name    the name the MBean is registered under, i.e. "za.ac.sun.grapl:type=IngestionMetrics,name=<name>".
+ * @param metrics the metrics to publish.
+ * @throws JMException if the MBean could not be registered e.g. as one with the same name is already registered.
+ */
+class JmxMetrics @JvmOverloads @Throws(JMException::class) constructor(
+        name: String = "default",
+        val metrics: InMemoryMetrics = InMemoryMetrics()
+) : IMetrics by metrics, DynamicMBean, Closeable {
+
+    val objectName = ObjectName(DOMAIN, Hashtable(mapOf("type" to TYPE, "name" to name)))
+
+    init {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName)
+    }
+
+    override fun getAttribute(attribute: String): Any =
+            metrics.snapshot()[attribute] ?: throw AttributeNotFoundException("No such attribute: $attribute")
+
+    override fun getAttributes(attributes: Array<out String>): AttributeList {
+        val snapshot = metrics.snapshot()
+        return AttributeList(attributes.filter { snapshot.containsKey(it) }.map { Attribute(it, snapshot[it]) })
+    }
+
+    override fun setAttribute(attribute: Attribute) =
+            throw AttributeNotFoundException("Attribute '${attribute.name}' is read-only")
+
+    override fun setAttributes(attributes: AttributeList) = AttributeList()
+
+    override fun invoke(actionName: String, params: Array<out Any>?, signature: Array<out String>?): Any? {
+        if (actionName != RESET) throw ReflectionException(NoSuchMethodException(actionName))
+        metrics.reset()
+        return null
+    }
+
+    override fun getMBeanInfo(): MBeanInfo {
+        val attributes = metrics.snapshot().map { (name, value) ->
+            MBeanAttributeInfo(name, value.javaClass.name, name, true, false, false)
+        }.toTypedArray()
+        val reset = MBeanOperationInfo(RESET, "Discards all measurements", emptyArray(), "void", MBeanOperationInfo.ACTION)
+        return MBeanInfo(javaClass.name, "j2GraPL ingestion metrics", attributes, null, arrayOf(reset), null)
+    }
+
+    override fun close() {
+        val server = ManagementFactory.getPlatformMBeanServer()
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName)
+    }
+
+    override fun toString() = "JmxMetrics($objectName)"
+
+    companion object {
+        const val DOMAIN = "za.ac.sun.grapl"
+        const val TYPE = "IngestionMetrics"
+        private const val RESET = "reset"
+    }
+}
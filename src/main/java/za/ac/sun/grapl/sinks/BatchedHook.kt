@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.sinks
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.models.GraPLVertex
+import za.ac.sun.grapl.domain.models.MethodDescriptorVertex
+import za.ac.sun.grapl.domain.models.vertices.*
+import za.ac.sun.grapl.hooks.IHook
+
+/**
+ * A write-behind [IHook] decorator which buffers vertex and edge operations and flushes them to the underlying hook.
+ * Operations are flushed in the order they were received once the batch is full, at the end of each method if enabled,
+ * and before any query so that queries always observe prior writes. Each buffered operation is still a call of its own
+ * on the underlying hook, so the batch is only written in bulk if the underlying hook is a [BulkHook]. Otherwise this
+ * decorator only defers the writes and saves no round trips.
+ *
+ * @param hook             the hook to flush operations to.
+ * @param batchSize        the number of operations buffered before they are flushed.
+ * @param flushOnMethodEnd true if buffered operations should be flushed at the end of each method.
+ * @throws IllegalArgumentException if the batch size is less than 1.
+ */
+class BatchedHook @JvmOverloads constructor(
+        private val hook: IHook,
+        private val batchSize: Int = DEFAULT_BATCH_SIZE,
+        private val flushOnMethodEnd: Boolean = true
+) : BufferingHook {
+
+    private val buffer: MutableList<(IHook) -> Unit>
+
+    init {
+        require(batchSize >= 1) { "The batch size must be at least 1!" }
+        buffer = ArrayList(batchSize)
+    }
+
+    /**
+     * The number of operations currently waiting to be flushed.
+     */
+    val pendingOperations: Int
+        get() = buffer.size
+
+    /**
+     * Sends all buffered operations to the underlying hook and flushes it if it buffers its writes too.
+     */
+    override fun flush() {
+        drain()
+        (hook as? BufferingHook)?.flush()
+    }
+
+    override fun endMethod() {
+        if (flushOnMethodEnd) drain()
+        (hook as? BufferingHook)?.endMethod()
+    }
+
+    private fun drain() {
+        if (buffer.isEmpty()) return
+        val bulk = hook as? BulkHook
+        bulk?.beginBulk()
+        try {
+            buffer.forEach { op -> op(hook) }
+        } finally {
+            buffer.clear()
+            bulk?.endBulk()
+        }
+    }
+
+    private fun enqueue(op: (IHook) -> Unit) {
+        buffer.add(op)
+        if (buffer.size >= batchSize) drain()
+    }
+
+    override fun registerMetaData(metaDataVertex: MetaDataVertex) = enqueue { it.registerMetaData(metaDataVertex) }
+
+    override fun addFileVertex(fileVertex: FileVertex) = enqueue { it.addFileVertex(fileVertex) }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, methodDescriptorVertex: MethodDescriptorVertex) =
+            enqueue { it.createAndAddToMethod(methodVertex, methodDescriptorVertex) }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, modifierVertex: ModifierVertex) =
+            enqueue { it.createAndAddToMethod(methodVertex, modifierVertex) }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, namespaceBlockVertex: NamespaceBlockVertex) =
+            enqueue { it.joinFileVertexTo(fileVertex, namespaceBlockVertex) }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, methodVertex: MethodVertex) =
+            enqueue { it.joinFileVertexTo(fileVertex, methodVertex) }
+
+    override fun joinNamespaceBlocks(from: NamespaceBlockVertex, to: NamespaceBlockVertex) =
+            enqueue { it.joinNamespaceBlocks(from, to) }
+
+    override fun createAndAssignToBlock(parentVertex: MethodVertex, newVertex: GraPLVertex) =
+            enqueue { it.createAndAssignToBlock(parentVertex, newVertex) }
+
+    override fun createAndAssignToBlock(rootMethod: MethodVertex, newVertex: GraPLVertex, blockOrder: Int) =
+            enqueue { it.createAndAssignToBlock(rootMethod, newVertex, blockOrder) }
+
+    override fun createAndAssignToBlock(newVertex: GraPLVertex, blockOrder: Int) =
+            enqueue { it.createAndAssignToBlock(newVertex, blockOrder) }
+
+    override fun updateASTVertexProperty(rootMethod: MethodVertex, order: Int, key: String, value: String) =
+            enqueue { it.updateASTVertexProperty(rootMethod, order, key, value) }
+
+    override fun updateASTVertexProperty(order: Int, key: String, value: String) =
+            enqueue { it.updateASTVertexProperty(order, key, value) }
+
+    override fun createVertex(graPLVertex: GraPLVertex) = enqueue { it.createVertex(graPLVertex) }
+
+    override fun joinASTVerticesByOrder(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) =
+            enqueue { it.joinASTVerticesByOrder(blockFrom, blockTo, edgeLabel) }
+
+    override fun areASTVerticesJoinedByEdge(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels): Boolean {
+        flush()
+        return hook.areASTVerticesJoinedByEdge(blockFrom, blockTo, edgeLabel)
+    }
+
+    override fun maxOrder(): Int {
+        flush()
+        return hook.maxOrder()
+    }
+
+    override fun isASTVertex(blockOrder: Int): Boolean {
+        flush()
+        return hook.isASTVertex(blockOrder)
+    }
+
+    override fun clearGraph() {
+        buffer.clear()
+        hook.clearGraph()
+    }
+
+    override fun close() {
+        flush()
+        hook.close()
+    }
+
+    override fun exportCurrentGraph(exportDir: String) {
+        flush()
+        hook.exportCurrentGraph(exportDir)
+    }
+
+    companion object {
+        const val DEFAULT_BATCH_SIZE = 500
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.sinks
+
+import za.ac.sun.grapl.hooks.IHook
+
+/**
+ * An [IHook] which may hold back writes, either itself or in the hook it decorates. The end of every method and of
+ * every fire is signalled through this interface and each decorator passes the signal on to the hook it wraps, so
+ * that buffered writes are written out however the hooks are chained.
+ */
+interface BufferingHook : IHook {
+
+    /**
+     * Notifies the hook that the AST of a method has been completely projected.
+     */
+    fun endMethod()
+
+    /**
+     * Writes out all buffered operations.
+     */
+    fun flush()
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.sinks
+
+import za.ac.sun.grapl.hooks.IHook
+
+/**
+ * An [IHook] which can take a run of operations as a single bulk write, e.g. one transaction or one round trip to a
+ * remote graph database. [BatchedHook] writes each of its batches between [beginBulk] and [endBulk] when the hook it
+ * decorates implements this interface.
+ */
+interface BulkHook : IHook {
+
+    /**
+     * Notifies the hook that the operations which follow, up to [endBulk], may be written together.
+     */
+    fun beginBulk()
+
+    /**
+     * Notifies the hook that the bulk write started by [beginBulk] is complete. This is also called if one of the
+     * operations failed, before the failure is passed on.
+     */
+    fun endBulk()
+}
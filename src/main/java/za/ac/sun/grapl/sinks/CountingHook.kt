@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.sinks
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.enums.VertexLabels
+import za.ac.sun.grapl.domain.models.ASTVertex
+import za.ac.sun.grapl.domain.models.GraPLVertex
+import za.ac.sun.grapl.domain.models.MethodDescriptorVertex
+import za.ac.sun.grapl.domain.models.vertices.*
+import za.ac.sun.grapl.hooks.IHook
+import java.util.*
+
+/**
+ * An [IHook] which only counts the vertices and edges that would have been written to the graph, by label. This gives
+ * a cheap dry-run of a projection, e.g. to validate that a large JAR can be fired, without a graph database.
+ *
+ * Vertices which a graph database would only create once, such as namespace blocks shared between classes, are only
+ * counted once. Edges are not kept so [areASTVerticesJoinedByEdge] always answers false.
+ */
+class CountingHook : BufferingHook {
+
+    private val vertexCounts = LongArray(VertexLabels.values().size)
+    private val edgeCounts = LongArray(EdgeLabels.values().size)
+    private val metaData = HashSet<MetaDataVertex>()
+    private val namespaces = HashSet<String>()
+    private val astOrders = BitSet()
+    private val files: MutableSet<FileVertex> = Collections.newSetFromMap(IdentityHashMap())
+    private var maxOrder = 0
+
+    /**
+     * The total number of vertices counted.
+     */
+    val totalVertices: Long
+        get() = vertexCounts.sum()
+
+    /**
+     * The total number of edges counted.
+     */
+    val totalEdges: Long
+        get() = edgeCounts.sum()
+
+    /**
+     * Returns the number of vertices counted with the given label.
+     */
+    fun vertexCount(label: VertexLabels) = vertexCounts[label.ordinal]
+
+    /**
+     * Returns the number of edges counted with the given label.
+     */
+    fun edgeCount(label: EdgeLabels) = edgeCounts[label.ordinal]
+
+    /**
+     * Returns the number of vertices counted by label, leaving out labels which were not counted.
+     */
+    fun vertexCounts(): Map<VertexLabels, Long> =
+            VertexLabels.values().filter { vertexCounts[it.ordinal] > 0 }.associateWithTo(EnumMap(VertexLabels::class.java)) { vertexCounts[it.ordinal] }
+
+    /**
+     * Returns the number of edges counted by label, leaving out labels which were not counted.
+     */
+    fun edgeCounts(): Map<EdgeLabels, Long> =
+            EdgeLabels.values().filter { edgeCounts[it.ordinal] > 0 }.associateWithTo(EnumMap(EdgeLabels::class.java)) { edgeCounts[it.ordinal] }
+
+    private fun countVertex(vertex: GraPLVertex) {
+        vertexCounts[labelOf(vertex).ordinal]++
+        if (vertex is ASTVertex) {
+            astOrders.set(vertex.order)
+            if (vertex.order > maxOrder) maxOrder = vertex.order
+        }
+    }
+
+    private fun countEdge(label: EdgeLabels) {
+        edgeCounts[label.ordinal]++
+    }
+
+    private fun countFile(fileVertex: FileVertex) {
+        if (files.add(fileVertex)) countVertex(fileVertex)
+    }
+
+    private fun countNamespace(namespaceBlockVertex: NamespaceBlockVertex) {
+        if (namespaces.add(namespaceBlockVertex.fullName)) countVertex(namespaceBlockVertex)
+    }
+
+    override fun endMethod() = Unit
+
+    /**
+     * Forgets the files counted so far since every file has been completely projected by the end of a fire.
+     */
+    override fun flush() = files.clear()
+
+    override fun registerMetaData(metaDataVertex: MetaDataVertex) {
+        if (metaData.add(metaDataVertex)) countVertex(metaDataVertex)
+    }
+
+    override fun addFileVertex(fileVertex: FileVertex) = countFile(fileVertex)
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, methodDescriptorVertex: MethodDescriptorVertex) {
+        countVertex(methodDescriptorVertex)
+        countEdge(EdgeLabels.AST)
+    }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, modifierVertex: ModifierVertex) {
+        countVertex(modifierVertex)
+        countEdge(EdgeLabels.AST)
+    }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, namespaceBlockVertex: NamespaceBlockVertex) {
+        countFile(fileVertex)
+        countNamespace(namespaceBlockVertex)
+        countEdge(EdgeLabels.AST)
+    }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, methodVertex: MethodVertex) {
+        countFile(fileVertex)
+        countVertex(methodVertex)
+        countEdge(EdgeLabels.AST)
+    }
+
+    override fun joinNamespaceBlocks(from: NamespaceBlockVertex, to: NamespaceBlockVertex) {
+        countNamespace(from)
+        countNamespace(to)
+        countEdge(EdgeLabels.AST)
+    }
+
+    override fun createAndAssignToBlock(parentVertex: MethodVertex, newVertex: GraPLVertex) {
+        countVertex(newVertex)
+        countEdge(EdgeLabels.AST)
+    }
+
+    override fun createAndAssignToBlock(rootMethod: MethodVertex, newVertex: GraPLVertex, blockOrder: Int) {
+        countVertex(newVertex)
+        countEdge(EdgeLabels.AST)
+    }
+
+    override fun createAndAssignToBlock(newVertex: GraPLVertex, blockOrder: Int) {
+        countVertex(newVertex)
+        countEdge(EdgeLabels.AST)
+    }
+
+    override fun updateASTVertexProperty(rootMethod: MethodVertex, order: Int, key: String, value: String) = Unit
+
+    override fun updateASTVertexProperty(order: Int, key: String, value: String) = Unit
+
+    override fun createVertex(graPLVertex: GraPLVertex) = countVertex(graPLVertex)
+
+    override fun joinASTVerticesByOrder(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) = countEdge(edgeLabel)
+
+    override fun areASTVerticesJoinedByEdge(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) = false
+
+    override fun maxOrder() = maxOrder
+
+    override fun isASTVertex(blockOrder: Int) = astOrders.get(blockOrder)
+
+    override fun clearGraph() {
+        Arrays.fill(vertexCounts, 0L)
+        Arrays.fill(edgeCounts, 0L)
+        metaData.clear()
+        namespaces.clear()
+        astOrders.clear()
+        files.clear()
+        maxOrder = 0
+    }
+
+    override fun close() = Unit
+
+    override fun exportCurrentGraph(exportDir: String) = Unit
+
+    override fun toString() = "CountingHook(vertices=${vertexCounts()}, edges=${edgeCounts()})"
+
+    companion object {
+        private val LABELS = object : ClassValue<VertexLabels>() {
+            override fun computeValue(type: Class<*>): VertexLabels =
+                    try {
+                        type.getField("LABEL").get(null) as? VertexLabels ?: VertexLabels.UNKNOWN
+                    } catch (e: ReflectiveOperationException) {
+                        VertexLabels.UNKNOWN
+                    }
+        }
+
+        /**
+         * Returns the label the given vertex is stored under.
+         */
+        @JvmStatic
+        fun labelOf(vertex: GraPLVertex): VertexLabels = LABELS.get(vertex.javaClass)
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.sinks
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.models.GraPLVertex
+import za.ac.sun.grapl.domain.models.MethodDescriptorVertex
+import za.ac.sun.grapl.domain.models.vertices.*
+import za.ac.sun.grapl.hooks.IHook
+import za.ac.sun.grapl.util.ASTFragmentCache
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_ADD_FILE_VERTEX
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_ADD_TO_METHOD_DESCRIPTOR
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_ADD_TO_METHOD_MODIFIER
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_ASSIGN_TO_BLOCK
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_ASSIGN_TO_METHOD
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_ASSIGN_TO_METHOD_BLOCK
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_CREATE_VERTEX
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_JOIN_BY_ORDER
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_JOIN_FILE_METHOD
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_JOIN_FILE_NAMESPACE
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_JOIN_NAMESPACE_BLOCKS
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_REGISTER_META_DATA
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_UPDATE_METHOD_PROPERTY
+import za.ac.sun.grapl.util.ASTFragmentCache.Companion.OP_UPDATE_PROPERTY
+
+/**
+ * An [IHook] decorator which passes every operation on to the underlying hook and, while a class is being recorded,
+ * encodes the vertex and edge operations of the class as a fragment in the format of an [ASTFragmentCache].
+ *
+ * @param hook    the hook to pass operations on to.
+ * @param version the version of the projection the fragments are encoded for.
+ */
+class FragmentRecordingHook(
+        private val hook: IHook,
+        private val version: String
+) : BufferingHook {
+
+    private var encoder: ASTFragmentCache.Encoder? = null
+
+    /**
+     * Starts recording the operations of a class.
+     *
+     * @param firstOrder the first order assigned to the class.
+     */
+    fun beginClass(firstOrder: Int) {
+        encoder = ASTFragmentCache.Encoder(firstOrder, version)
+    }
+
+    /**
+     * Stops recording and returns the encoded operations of the class, or null if they could not all be encoded.
+     */
+    fun endClass(): ByteArray? {
+        val fragment = encoder?.toByteArray()
+        encoder = null
+        return fragment
+    }
+
+    /**
+     * Passes the end of a method on to the underlying hook if it buffers its writes.
+     */
+    override fun endMethod() {
+        (hook as? BufferingHook)?.endMethod()
+    }
+
+    /**
+     * Flushes the underlying hook if it buffers its writes.
+     */
+    override fun flush() {
+        (hook as? BufferingHook)?.flush()
+    }
+
+    private fun record(opcode: Int, body: ASTFragmentCache.Encoder.() -> Unit) {
+        encoder?.write(opcode, body)
+    }
+
+    override fun registerMetaData(metaDataVertex: MetaDataVertex) {
+        record(OP_REGISTER_META_DATA) { vertex(metaDataVertex) }
+        hook.registerMetaData(metaDataVertex)
+    }
+
+    override fun addFileVertex(fileVertex: FileVertex) {
+        record(OP_ADD_FILE_VERTEX) { vertex(fileVertex) }
+        hook.addFileVertex(fileVertex)
+    }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, methodDescriptorVertex: MethodDescriptorVertex) {
+        record(OP_ADD_TO_METHOD_DESCRIPTOR) { vertex(methodVertex); vertex(methodDescriptorVertex) }
+        hook.createAndAddToMethod(methodVertex, methodDescriptorVertex)
+    }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, modifierVertex: ModifierVertex) {
+        record(OP_ADD_TO_METHOD_MODIFIER) { vertex(methodVertex); vertex(modifierVertex) }
+        hook.createAndAddToMethod(methodVertex, modifierVertex)
+    }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, namespaceBlockVertex: NamespaceBlockVertex) {
+        record(OP_JOIN_FILE_NAMESPACE) { vertex(fileVertex); vertex(namespaceBlockVertex) }
+        hook.joinFileVertexTo(fileVertex, namespaceBlockVertex)
+    }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, methodVertex: MethodVertex) {
+        record(OP_JOIN_FILE_METHOD) { vertex(fileVertex); vertex(methodVertex) }
+        hook.joinFileVertexTo(fileVertex, methodVertex)
+    }
+
+    override fun joinNamespaceBlocks(from: NamespaceBlockVertex, to: NamespaceBlockVertex) {
+        record(OP_JOIN_NAMESPACE_BLOCKS) { vertex(from); vertex(to) }
+        hook.joinNamespaceBlocks(from, to)
+    }
+
+    override fun createAndAssignToBlock(parentVertex: MethodVertex, newVertex: GraPLVertex) {
+        record(OP_ASSIGN_TO_METHOD) { vertex(parentVertex); vertex(newVertex) }
+        hook.createAndAssignToBlock(parentVertex, newVertex)
+    }
+
+    override fun createAndAssignToBlock(rootMethod: MethodVertex, newVertex: GraPLVertex, blockOrder: Int) {
+        record(OP_ASSIGN_TO_METHOD_BLOCK) { vertex(rootMethod); vertex(newVertex); order(blockOrder) }
+        hook.createAndAssignToBlock(rootMethod, newVertex, blockOrder)
+    }
+
+    override fun createAndAssignToBlock(newVertex: GraPLVertex, blockOrder: Int) {
+        record(OP_ASSIGN_TO_BLOCK) { vertex(newVertex); order(blockOrder) }
+        hook.createAndAssignToBlock(newVertex, blockOrder)
+    }
+
+    override fun updateASTVertexProperty(rootMethod: MethodVertex, order: Int, key: String, value: String) {
+        record(OP_UPDATE_METHOD_PROPERTY) { vertex(rootMethod); order(order); string(key); string(value) }
+        hook.updateASTVertexProperty(rootMethod, order, key, value)
+    }
+
+    override fun updateASTVertexProperty(order: Int, key: String, value: String) {
+        record(OP_UPDATE_PROPERTY) { order(order); string(key); string(value) }
+        hook.updateASTVertexProperty(order, key, value)
+    }
+
+    override fun createVertex(graPLVertex: GraPLVertex) {
+        record(OP_CREATE_VERTEX) { vertex(graPLVertex) }
+        hook.createVertex(graPLVertex)
+    }
+
+    override fun joinASTVerticesByOrder(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) {
+        record(OP_JOIN_BY_ORDER) { order(blockFrom); order(blockTo); edge(edgeLabel) }
+        hook.joinASTVerticesByOrder(blockFrom, blockTo, edgeLabel)
+    }
+
+    override fun areASTVerticesJoinedByEdge(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) =
+            hook.areASTVerticesJoinedByEdge(blockFrom, blockTo, edgeLabel)
+
+    override fun maxOrder() = hook.maxOrder()
+
+    override fun isASTVertex(blockOrder: Int) = hook.isASTVertex(blockOrder)
+
+    override fun clearGraph() = hook.clearGraph()
+
+    override fun close() = hook.close()
+
+    override fun exportCurrentGraph(exportDir: String) = hook.exportCurrentGraph(exportDir)
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.sinks
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.models.GraPLVertex
+import za.ac.sun.grapl.domain.models.MethodDescriptorVertex
+import za.ac.sun.grapl.domain.models.vertices.*
+import za.ac.sun.grapl.hooks.IHook
+import za.ac.sun.grapl.metrics.IMetrics
+import za.ac.sun.grapl.sinks.CountingHook.Companion.labelOf
+import java.util.*
+
+/**
+ * An [IHook] decorator which times every call to the underlying hook and records the vertices and edges emitted to it
+ * with the given [IMetrics]. Vertices are counted the same way as by [CountingHook].
+ *
+ * @param hook    the hook to pass operations on to.
+ * @param metrics the metrics to record with.
+ */
+class MetricsHook(
+        private val hook: IHook,
+        private val metrics: IMetrics
+) : BufferingHook {
+
+    private val metaData = HashSet<MetaDataVertex>()
+    private val namespaces = HashSet<String>()
+    private val files: MutableSet<FileVertex> = Collections.newSetFromMap(IdentityHashMap())
+
+    private inline fun <T> timed(operation: String, call: () -> T): T {
+        val start = System.nanoTime()
+        try {
+            return call()
+        } finally {
+            metrics.recordHookCall(operation, System.nanoTime() - start)
+        }
+    }
+
+    private fun emitted(vertex: GraPLVertex) = metrics.recordVertex(labelOf(vertex))
+
+    private fun emittedAstEdge() = metrics.recordEdge(EdgeLabels.AST)
+
+    private fun emittedFile(fileVertex: FileVertex) {
+        if (files.add(fileVertex)) emitted(fileVertex)
+    }
+
+    private fun emittedNamespace(namespaceBlockVertex: NamespaceBlockVertex) {
+        if (namespaces.add(namespaceBlockVertex.fullName)) emitted(namespaceBlockVertex)
+    }
+
+    /**
+     * Passes the end of a method on to the underlying hook if it buffers its writes.
+     */
+    override fun endMethod() {
+        val buffering = hook as? BufferingHook ?: return
+        timed("endMethod") { buffering.endMethod() }
+    }
+
+    /**
+     * Forgets the files seen so far once the class being fired has been completely emitted, so that the files of a
+     * fire are not kept until it ends.
+     */
+    fun endClass() = files.clear()
+
+    /**
+     * Flushes the underlying hook if it buffers its writes. Every file has been completely emitted by the end of a
+     * fire so the files seen so far are forgotten.
+     */
+    override fun flush() {
+        files.clear()
+        val buffering = hook as? BufferingHook ?: return
+        timed("flush") { buffering.flush() }
+    }
+
+    override fun registerMetaData(metaDataVertex: MetaDataVertex) {
+        timed("registerMetaData") { hook.registerMetaData(metaDataVertex) }
+        if (metaData.add(metaDataVertex)) emitted(metaDataVertex)
+    }
+
+    override fun addFileVertex(fileVertex: FileVertex) {
+        timed("addFileVertex") { hook.addFileVertex(fileVertex) }
+        emittedFile(fileVertex)
+    }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, methodDescriptorVertex: MethodDescriptorVertex) {
+        timed("createAndAddToMethod") { hook.createAndAddToMethod(methodVertex, methodDescriptorVertex) }
+        emitted(methodDescriptorVertex)
+        emittedAstEdge()
+    }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, modifierVertex: ModifierVertex) {
+        timed("createAndAddToMethod") { hook.createAndAddToMethod(methodVertex, modifierVertex) }
+        emitted(modifierVertex)
+        emittedAstEdge()
+    }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, namespaceBlockVertex: NamespaceBlockVertex) {
+        timed("joinFileVertexTo") { hook.joinFileVertexTo(fileVertex, namespaceBlockVertex) }
+        emittedFile(fileVertex)
+        emittedNamespace(namespaceBlockVertex)
+        emittedAstEdge()
+    }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, methodVertex: MethodVertex) {
+        timed("joinFileVertexTo") { hook.joinFileVertexTo(fileVertex, methodVertex) }
+        emittedFile(fileVertex)
+        emitted(methodVertex)
+        emittedAstEdge()
+    }
+
+    override fun joinNamespaceBlocks(from: NamespaceBlockVertex, to: NamespaceBlockVertex) {
+        timed("joinNamespaceBlocks") { hook.joinNamespaceBlocks(from, to) }
+        emittedNamespace(from)
+        emittedNamespace(to)
+        emittedAstEdge()
+    }
+
+    override fun createAndAssignToBlock(parentVertex: MethodVertex, newVertex: GraPLVertex) {
+        timed("createAndAssignToBlock") { hook.createAndAssignToBlock(parentVertex, newVertex) }
+        emitted(newVertex)
+        emittedAstEdge()
+    }
+
+    override fun createAndAssignToBlock(rootMethod: MethodVertex, newVertex: GraPLVertex, blockOrder: Int) {
+        timed("createAndAssignToBlock") { hook.createAndAssignToBlock(rootMethod, newVertex, blockOrder) }
+        emitted(newVertex)
+        emittedAstEdge()
+    }
+
+    override fun createAndAssignToBlock(newVertex: GraPLVertex, blockOrder: Int) {
+        timed("createAndAssignToBlock") { hook.createAndAssignToBlock(newVertex, blockOrder) }
+        emitted(newVertex)
+        emittedAstEdge()
+    }
+
+    override fun updateASTVertexProperty(rootMethod: MethodVertex, order: Int, key: String, value: String) =
+            timed("updateASTVertexProperty") { hook.updateASTVertexProperty(rootMethod, order, key, value) }
+
+    override fun updateASTVertexProperty(order: Int, key: String, value: String) =
+            timed("updateASTVertexProperty") { hook.updateASTVertexProperty(order, key, value) }
+
+    override fun createVertex(graPLVertex: GraPLVertex) {
+        timed("createVertex") { hook.createVertex(graPLVertex) }
+        emitted(graPLVertex)
+    }
+
+    override fun joinASTVerticesByOrder(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) {
+        timed("joinASTVerticesByOrder") { hook.joinASTVerticesByOrder(blockFrom, blockTo, edgeLabel) }
+        metrics.recordEdge(edgeLabel)
+    }
+
+    override fun areASTVerticesJoinedByEdge(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) =
+            timed("areASTVerticesJoinedByEdge") { hook.areASTVerticesJoinedByEdge(blockFrom, blockTo, edgeLabel) }
+
+    override fun maxOrder() = timed("maxOrder") { hook.maxOrder() }
+
+    override fun isASTVertex(blockOrder: Int) = timed("isASTVertex") { hook.isASTVertex(blockOrder) }
+
+    override fun clearGraph() {
+        timed("clearGraph") { hook.clearGraph() }
+        metaData.clear()
+        namespaces.clear()
+        files.clear()
+    }
+
+    override fun close() = timed("close") { hook.close() }
+
+    override fun exportCurrentGraph(exportDir: String) = timed("exportCurrentGraph") { hook.exportCurrentGraph(exportDir) }
+}
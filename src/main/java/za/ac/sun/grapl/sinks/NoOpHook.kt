@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.sinks
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.models.GraPLVertex
+import za.ac.sun.grapl.domain.models.MethodDescriptorVertex
+import za.ac.sun.grapl.domain.models.vertices.*
+import za.ac.sun.grapl.hooks.IHook
+
+/**
+ * An [IHook] which discards every write. Queries answer as if the graph were empty. This isolates the cost of parsing
+ * and projecting classes from the cost of the graph database.
+ */
+class NoOpHook : IHook {
+
+    override fun registerMetaData(metaDataVertex: MetaDataVertex) = Unit
+
+    override fun addFileVertex(fileVertex: FileVertex) = Unit
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, methodDescriptorVertex: MethodDescriptorVertex) = Unit
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, modifierVertex: ModifierVertex) = Unit
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, namespaceBlockVertex: NamespaceBlockVertex) = Unit
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, methodVertex: MethodVertex) = Unit
+
+    override fun joinNamespaceBlocks(from: NamespaceBlockVertex, to: NamespaceBlockVertex) = Unit
+
+    override fun createAndAssignToBlock(parentVertex: MethodVertex, newVertex: GraPLVertex) = Unit
+
+    override fun createAndAssignToBlock(rootMethod: MethodVertex, newVertex: GraPLVertex, blockOrder: Int) = Unit
+
+    override fun createAndAssignToBlock(newVertex: GraPLVertex, blockOrder: Int) = Unit
+
+    override fun updateASTVertexProperty(rootMethod: MethodVertex, order: Int, key: String, value: String) = Unit
+
+    override fun updateASTVertexProperty(order: Int, key: String, value: String) = Unit
+
+    override fun createVertex(graPLVertex: GraPLVertex) = Unit
+
+    override fun joinASTVerticesByOrder(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) = Unit
+
+    override fun areASTVerticesJoinedByEdge(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) = false
+
+    override fun maxOrder() = 0
+
+    override fun isASTVertex(blockOrder: Int) = false
+
+    override fun clearGraph() = Unit
+
+    override fun close() = Unit
+
+    override fun exportCurrentGraph(exportDir: String) = Unit
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.sinks
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.models.GraPLVertex
+import za.ac.sun.grapl.domain.models.MethodDescriptorVertex
+import za.ac.sun.grapl.domain.models.vertices.*
+import za.ac.sun.grapl.hooks.IHook
+
+/**
+ * An [IHook] decorator which serializes every call to the underlying hook. This allows multiple workers to project
+ * their classes on the same graph database concurrently.
+ *
+ * @param hook the hook to funnel all graph writes and queries into.
+ */
+class SynchronizedHook(private val hook: IHook) : BufferingHook {
+
+    private val lock = Any()
+
+    /**
+     * Runs the given block while holding the lock, so that the calls it makes to this hook reach the underlying hook
+     * without being interleaved with the calls of other workers.
+     */
+    fun <T> exclusively(block: () -> T): T = synchronized(lock, block)
+
+    override fun endMethod() {
+        synchronized(lock) { (hook as? BufferingHook)?.endMethod() }
+    }
+
+    override fun flush() {
+        synchronized(lock) { (hook as? BufferingHook)?.flush() }
+    }
+
+    override fun registerMetaData(metaDataVertex: MetaDataVertex) = synchronized(lock) { hook.registerMetaData(metaDataVertex) }
+
+    override fun addFileVertex(fileVertex: FileVertex) = synchronized(lock) { hook.addFileVertex(fileVertex) }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, methodDescriptorVertex: MethodDescriptorVertex) =
+            synchronized(lock) { hook.createAndAddToMethod(methodVertex, methodDescriptorVertex) }
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, modifierVertex: ModifierVertex) =
+            synchronized(lock) { hook.createAndAddToMethod(methodVertex, modifierVertex) }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, namespaceBlockVertex: NamespaceBlockVertex) =
+            synchronized(lock) { hook.joinFileVertexTo(fileVertex, namespaceBlockVertex) }
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, methodVertex: MethodVertex) =
+            synchronized(lock) { hook.joinFileVertexTo(fileVertex, methodVertex) }
+
+    override fun joinNamespaceBlocks(from: NamespaceBlockVertex, to: NamespaceBlockVertex) =
+            synchronized(lock) { hook.joinNamespaceBlocks(from, to) }
+
+    override fun createAndAssignToBlock(parentVertex: MethodVertex, newVertex: GraPLVertex) =
+            synchronized(lock) { hook.createAndAssignToBlock(parentVertex, newVertex) }
+
+    override fun createAndAssignToBlock(rootMethod: MethodVertex, newVertex: GraPLVertex, blockOrder: Int) =
+            synchronized(lock) { hook.createAndAssignToBlock(rootMethod, newVertex, blockOrder) }
+
+    override fun createAndAssignToBlock(newVertex: GraPLVertex, blockOrder: Int) =
+            synchronized(lock) { hook.createAndAssignToBlock(newVertex, blockOrder) }
+
+    override fun updateASTVertexProperty(rootMethod: MethodVertex, order: Int, key: String, value: String) =
+            synchronized(lock) { hook.updateASTVertexProperty(rootMethod, order, key, value) }
+
+    override fun updateASTVertexProperty(order: Int, key: String, value: String) =
+            synchronized(lock) { hook.updateASTVertexProperty(order, key, value) }
+
+    override fun createVertex(graPLVertex: GraPLVertex) = synchronized(lock) { hook.createVertex(graPLVertex) }
+
+    override fun joinASTVerticesByOrder(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) =
+            synchronized(lock) { hook.joinASTVerticesByOrder(blockFrom, blockTo, edgeLabel) }
+
+    override fun areASTVerticesJoinedByEdge(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) =
+            synchronized(lock) { hook.areASTVerticesJoinedByEdge(blockFrom, blockTo, edgeLabel) }
+
+    override fun maxOrder() = synchronized(lock) { hook.maxOrder() }
+
+    override fun isASTVertex(blockOrder: Int) = synchronized(lock) { hook.isASTVertex(blockOrder) }
+
+    override fun clearGraph() = synchronized(lock) { hook.clearGraph() }
+
+    override fun close() = synchronized(lock) { hook.close() }
+
+    override fun exportCurrentGraph(exportDir: String) = synchronized(lock) { hook.exportCurrentGraph(exportDir) }
+}
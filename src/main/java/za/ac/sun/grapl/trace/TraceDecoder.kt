@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.trace
+
+import za.ac.sun.grapl.domain.enums.TraceEvents
+import za.ac.sun.grapl.domain.enums.VisitorPasses
+import za.ac.sun.grapl.trace.TraceLog.Companion.CAPACITY_OFFSET
+import za.ac.sun.grapl.trace.TraceLog.Companion.DROPPED_OFFSET
+import za.ac.sun.grapl.trace.TraceLog.Companion.HEADER_SIZE
+import za.ac.sun.grapl.trace.TraceLog.Companion.MAGIC
+import za.ac.sun.grapl.trace.TraceLog.Companion.MAGIC_OFFSET
+import za.ac.sun.grapl.trace.TraceLog.Companion.NEXT_SEQ_OFFSET
+import za.ac.sun.grapl.trace.TraceLog.Companion.RECORD_SIZE
+import za.ac.sun.grapl.trace.TraceLog.Companion.RECORD_SIZE_OFFSET
+import za.ac.sun.grapl.trace.TraceLog.Companion.VERSION
+import za.ac.sun.grapl.trace.TraceLog.Companion.VERSION_OFFSET
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+
+/**
+ * Reads the ring file written by a [TraceLog] back into [TraceRecord]s. The file may be read while it is still being
+ * written or after the process writing it has died, in which case the records up to the last complete one are read.
+ */
+object TraceDecoder {
+
+    /**
+     * The records of a trace in the order they were written, starting at the oldest record still held in the file.
+     *
+     * @param records the records other than the method names, which are resolved into [TraceRecord.method].
+     * @param dropped the number of records the writer dropped, as recorded when the trace was closed.
+     */
+    class Trace(val records: List<TraceRecord>, val dropped: Long)
+
+    /**
+     * Decodes the trace held in the given ring file.
+     *
+     * @param file the ring file written by a [TraceLog].
+     * @throws IOException if the file is not a trace or was written by another version.
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun decode(file: File): Trace {
+        val buffer = RandomAccessFile(file, "r").use { raf ->
+            raf.channel.map(FileChannel.MapMode.READ_ONLY, 0, raf.length())
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC) throw IOException("$file is not a trace")
+        if (buffer.getInt(VERSION_OFFSET) != VERSION || buffer.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE)
+            throw IOException("$file was written by an unsupported trace version")
+        val capacity = buffer.getInt(CAPACITY_OFFSET)
+        val nextSeq = buffer.getLong(NEXT_SEQ_OFFSET)
+        val names = HashMap<Int, ByteArrayOutputStream>()
+        val records = ArrayList<TraceRecord>()
+        for (seq in maxOf(0, nextSeq - capacity) until nextSeq) {
+            val position = HEADER_SIZE + (seq % capacity).toInt() * RECORD_SIZE
+            if (buffer.getLong(position) != seq) continue
+            val w0 = buffer.getLong(position + 8)
+            val w1 = buffer.getLong(position + 16)
+            val w2 = buffer.getLong(position + 24)
+            val event = TraceEvents.values()[(w0 ushr 56).toInt()]
+            if (event == TraceEvents.NAME) {
+                val length = ((w0 ushr 48) and 0xFF).toInt()
+                names[w0.toInt()]?.write(ByteBuffer.allocate(16).putLong(w1).putLong(w2).array(), 0, length)
+                continue
+            }
+            val methodId = w2.toInt()
+            if (event == TraceEvents.METHOD) names[methodId] = ByteArrayOutputStream()
+            records.add(TraceRecord(
+                    seq = seq,
+                    event = event,
+                    pass = VisitorPasses.values()[((w0 ushr 48) and 0xFF).toInt()],
+                    method = null,
+                    methodId = methodId,
+                    opcode = ((w0 ushr 32) and 0xFFFF).toInt().let { if (it == 0xFFFF) -1 else it },
+                    operand = w0.toInt(),
+                    operand2 = (w1 ushr 32).toInt(),
+                    labelId = w1.toInt(),
+                    pseudoLineNo = (w2 ushr 32).toInt()
+            ))
+        }
+        val methods = names.mapValues { (_, bytes) -> bytes.toString("UTF-8") }
+        return Trace(records.map { it.copy(method = methods[it.methodId]) }, buffer.getLong(DROPPED_OFFSET))
+    }
+
+    /**
+     * Prints the decoded trace held in the ring file given as the only argument.
+     */
+    @JvmStatic
+    fun main(args: Array<String>) {
+        require(args.size == 1) { "Usage: TraceDecoder <trace file>" }
+        val trace = decode(File(args[0]))
+        trace.records.forEach(::println)
+        if (trace.dropped > 0) println("${trace.dropped} records were dropped")
+    }
+}
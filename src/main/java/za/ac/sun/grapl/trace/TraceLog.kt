@@ -0,0 +1,264 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.trace
+
+import org.objectweb.asm.Label
+import za.ac.sun.grapl.domain.enums.TraceEvents
+import za.ac.sun.grapl.domain.enums.VisitorPasses
+import java.io.Closeable
+import java.io.File
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * A trace of the instructions seen by the visitor passes, written as fixed-size binary records to a memory-mapped ring
+ * file. Visitors hand their records to a bounded in-memory buffer without locking or allocating per record and a
+ * daemon thread copies them into the file, so that tracing stays cheap enough to leave on. Once the file is full the oldest records
+ * are overwritten. Records which arrive while the buffer is full are dropped and counted rather than blocking the
+ * visitors. The file is read back with [TraceDecoder].
+ *
+ * @param file       the ring file to write the trace to. Any existing content is replaced.
+ * @param capacity   the number of records the ring file holds.
+ * @param bufferSize the number of records buffered in memory for the writer thread, rounded up to a power of two.
+ */
+class TraceLog @JvmOverloads constructor(
+        file: File,
+        private val capacity: Int = DEFAULT_CAPACITY,
+        bufferSize: Int = DEFAULT_BUFFER_SIZE
+) : Closeable {
+    private val channel: FileChannel
+    private val map: MappedByteBuffer
+    private val mask: Int
+    private val slots: LongArray
+    private val published: AtomicLongArray
+    private val claimed = AtomicLong()
+    private val droppedRecords = AtomicLong()
+    private val nextMethodId = AtomicInteger()
+
+    @Volatile
+    private var consumed = 0L
+
+    @Volatile
+    private var closed = false
+    private val writer: Thread
+
+    init {
+        require(capacity > 0) { "The capacity of a trace must be positive" }
+        require(bufferSize > 0) { "The buffer size of a trace must be positive" }
+        val size = Integer.highestOneBit(bufferSize - 1 shl 1).coerceAtLeast(1)
+        mask = size - 1
+        slots = LongArray(size * WORDS)
+        published = AtomicLongArray(size).apply { for (i in 0 until size) set(i, -1) }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity.toLong() * RECORD_SIZE)
+        map.putInt(MAGIC_OFFSET, MAGIC)
+                .putInt(VERSION_OFFSET, VERSION)
+                .putInt(RECORD_SIZE_OFFSET, RECORD_SIZE)
+                .putInt(CAPACITY_OFFSET, capacity)
+                .putLong(NEXT_SEQ_OFFSET, 0)
+                .putLong(DROPPED_OFFSET, 0)
+        writer = Thread(Runnable { drain() }, "j2grapl-trace").apply {
+            isDaemon = true
+            start()
+        }
+    }
+
+    /**
+     * The number of records dropped so far because the writer thread had fallen behind.
+     */
+    val dropped: Long
+        get() = droppedRecords.get()
+
+    /**
+     * Records the start of a method visit and returns the trace its instructions are recorded with.
+     *
+     * @param pass       the visitor pass the method is visited in.
+     * @param owner      the internal name of the class declaring the method.
+     * @param name       the name of the method.
+     * @param descriptor the descriptor of the method.
+     */
+    fun beginMethod(pass: VisitorPasses, owner: String, name: String, descriptor: String): MethodTrace {
+        val methodId = nextMethodId.incrementAndGet()
+        publish(pack(TraceEvents.METHOD, pass, -1, 0), pack(0, -1), pack(0, methodId))
+        val bytes = "$owner.$name$descriptor".toByteArray(Charsets.UTF_8)
+        for (offset in bytes.indices step NAME_CHUNK_SIZE) {
+            val length = minOf(NAME_CHUNK_SIZE, bytes.size - offset)
+            publish(packName(length, methodId), chunk(bytes, offset, length, 0), chunk(bytes, offset, length, 8))
+        }
+        return MethodTrace(pass, methodId)
+    }
+
+    private fun publish(w0: Long, w1: Long, w2: Long) {
+        if (closed) return
+        while (true) {
+            val seq = claimed.get()
+            if (seq - consumed > mask) {
+                droppedRecords.incrementAndGet()
+                return
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) {
+                val slot = (seq and mask.toLong()).toInt()
+                val base = slot * WORDS
+                slots[base] = w0
+                slots[base + 1] = w1
+                slots[base + 2] = w2
+                published.set(slot, seq)
+                return
+            }
+        }
+    }
+
+    private fun drain() {
+        var seq = 0L
+        var fileSeq = 0L
+        while (true) {
+            val slot = (seq and mask.toLong()).toInt()
+            if (published.get(slot) == seq) {
+                val base = slot * WORDS
+                val position = HEADER_SIZE + (fileSeq % capacity).toInt() * RECORD_SIZE
+                map.putLong(position + 8, slots[base])
+                        .putLong(position + 16, slots[base + 1])
+                        .putLong(position + 24, slots[base + 2])
+                        // The sequence is written last so that a torn record does not match the expected sequence
+                        .putLong(position, fileSeq)
+                        .putLong(NEXT_SEQ_OFFSET, ++fileSeq)
+                consumed = ++seq
+            } else if (closed && seq == claimed.get()) {
+                break
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS)
+            }
+        }
+    }
+
+    /**
+     * Waits for the writer thread to write out the buffered records and closes the ring file.
+     */
+    override fun close() {
+        if (closed) return
+        closed = true
+        writer.join()
+        map.putLong(DROPPED_OFFSET, droppedRecords.get())
+        map.force()
+        channel.close()
+    }
+
+    /**
+     * The trace of a single method visit. Labels are numbered in the order they are first seen so that they can be
+     * told apart in the decoded trace. The numbers are kept in an open-addressing identity table of primitive ids so
+     * that looking a label up does not box its id. A method trace is only used by the thread visiting the method.
+     */
+    inner class MethodTrace internal constructor(private val pass: VisitorPasses, val methodId: Int) {
+        private var labels = arrayOfNulls<Label>(INITIAL_LABEL_SLOTS)
+        private var labelIds = IntArray(INITIAL_LABEL_SLOTS)
+        private var labelCount = 0
+
+        private fun labelId(label: Label?): Int {
+            if (label == null) return -1
+            val mask = labels.size - 1
+            var i = System.identityHashCode(label) and mask
+            while (true) {
+                val existing = labels[i] ?: break
+                if (existing === label) return labelIds[i]
+                i = (i + 1) and mask
+            }
+            labels[i] = label
+            labelIds[i] = labelCount
+            if (++labelCount * 2 > labels.size) growLabels()
+            return labelCount - 1
+        }
+
+        private fun growLabels() {
+            val oldLabels = labels
+            val oldIds = labelIds
+            labels = arrayOfNulls(oldLabels.size * 2)
+            labelIds = IntArray(oldLabels.size * 2)
+            val mask = labels.size - 1
+            for (j in oldLabels.indices) {
+                val label = oldLabels[j] ?: continue
+                var i = System.identityHashCode(label) and mask
+                while (labels[i] != null) i = (i + 1) and mask
+                labels[i] = label
+                labelIds[i] = oldIds[j]
+            }
+        }
+
+        /**
+         * Records a single event of the method visit.
+         *
+         * @param event        the kind of event.
+         * @param opcode       the opcode of the instruction, or -1 if the event is not an instruction.
+         * @param operand      the first operand of the event, e.g. the variable index or line number.
+         * @param operand2     the second operand of the event, e.g. the increment of an IINC.
+         * @param label        the label the event refers to, if any.
+         * @param pseudoLineNo the pseudo line number of the controller at the event.
+         */
+        fun record(event: TraceEvents, opcode: Int, operand: Int, operand2: Int, label: Label?, pseudoLineNo: Int) =
+                publish(pack(event, pass, opcode, operand), pack(operand2, labelId(label)), pack(pseudoLineNo, methodId))
+    }
+
+    companion object {
+        const val DEFAULT_CAPACITY = 1 shl 20
+        const val DEFAULT_BUFFER_SIZE = 1 shl 14
+
+        internal const val MAGIC = 0x4A325452
+        internal const val VERSION = 1
+        internal const val HEADER_SIZE = 64
+        internal const val RECORD_SIZE = 32
+        internal const val MAGIC_OFFSET = 0
+        internal const val VERSION_OFFSET = 4
+        internal const val RECORD_SIZE_OFFSET = 8
+        internal const val CAPACITY_OFFSET = 12
+        internal const val NEXT_SEQ_OFFSET = 16
+        internal const val DROPPED_OFFSET = 24
+        internal const val NAME_CHUNK_SIZE = 16
+        private const val WORDS = 3
+        private const val IDLE_PARK_NANOS = 100_000L
+        private const val INITIAL_LABEL_SLOTS = 16
+
+        /*
+         * A record is its sequence number followed by three words:
+         *   w0: event (8 bits) | pass (8 bits) | opcode (16 bits) | operand (32 bits)
+         *   w1: operand2 (32 bits) | label id (32 bits)
+         *   w2: pseudo line number (32 bits) | method id (32 bits)
+         * The name of a method follows its METHOD record as NAME records carrying the chunk length in place of the
+         * pass, the method id in place of the operand and up to 16 bytes of UTF-8 in w1 and w2.
+         */
+        private fun pack(event: TraceEvents, pass: VisitorPasses, opcode: Int, operand: Int) =
+                (event.ordinal.toLong() shl 56) or (pass.ordinal.toLong() shl 48) or
+                        ((opcode.toLong() and 0xFFFF) shl 32) or (operand.toLong() and 0xFFFFFFFF)
+
+        private fun packName(length: Int, methodId: Int) =
+                (TraceEvents.NAME.ordinal.toLong() shl 56) or (length.toLong() shl 48) or (methodId.toLong() and 0xFFFFFFFF)
+
+        private fun pack(high: Int, low: Int) = (high.toLong() shl 32) or (low.toLong() and 0xFFFFFFFF)
+
+        private fun chunk(bytes: ByteArray, offset: Int, length: Int, from: Int): Long {
+            var word = 0L
+            for (i in from until from + 8) {
+                val b = if (i < length) bytes[offset + i].toLong() and 0xFF else 0L
+                word = (word shl 8) or b
+            }
+            return word
+        }
+    }
+}
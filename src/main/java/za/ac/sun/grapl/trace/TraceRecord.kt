@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.trace
+
+import org.objectweb.asm.util.ASMifier
+import za.ac.sun.grapl.domain.enums.TraceEvents
+import za.ac.sun.grapl.domain.enums.VisitorPasses
+
+/**
+ * A single decoded record of a [TraceLog].
+ *
+ * @param seq          the position of the record in the whole trace.
+ * @param event        the kind of event.
+ * @param pass         the visitor pass the event was recorded in.
+ * @param method       the method the event belongs to, as owner.name+descriptor, or null if its name was overwritten.
+ * @param methodId     the id of the method visit the event belongs to.
+ * @param opcode       the opcode of the instruction, or -1 if the event is not an instruction.
+ * @param operand      the first operand of the event.
+ * @param operand2     the second operand of the event.
+ * @param labelId      the id of the label the event refers to within the method visit, or -1 if there is none.
+ * @param pseudoLineNo the pseudo line number of the controller at the event.
+ */
+data class TraceRecord(
+        val seq: Long,
+        val event: TraceEvents,
+        val pass: VisitorPasses,
+        val method: String?,
+        val methodId: Int,
+        val opcode: Int,
+        val operand: Int,
+        val operand2: Int,
+        val labelId: Int,
+        val pseudoLineNo: Int
+) {
+    override fun toString(): String {
+        val sb = StringBuilder("#$seq $pass [$methodId] ")
+        when (event) {
+            TraceEvents.METHOD -> sb.append("METHOD ").append(method ?: "?")
+            TraceEvents.LABEL -> sb.append("L$labelId")
+            TraceEvents.LINE_NUMBER -> sb.append("LINE $operand L$labelId")
+            else -> {
+                sb.append(if (opcode in ASMifier.OPCODES.indices) ASMifier.OPCODES[opcode] else opcode.toString())
+                when (event) {
+                    TraceEvents.INT_INSN, TraceEvents.VAR_INSN, TraceEvents.LDC_INSN -> sb.append(' ').append(operand)
+                    TraceEvents.IINC_INSN -> sb.append(' ').append(operand).append(' ').append(operand2)
+                    TraceEvents.JUMP_INSN -> sb.append(" L").append(labelId)
+                    TraceEvents.METHOD_INSN, TraceEvents.FIELD_INSN, TraceEvents.TYPE_INSN -> sb.append(" #").append(Integer.toHexString(operand))
+                    TraceEvents.INVOKE_DYNAMIC_INSN -> sb.append(" #").append(Integer.toHexString(operand))
+                            .append(" #").append(Integer.toHexString(operand2))
+                    TraceEvents.TABLE_SWITCH_INSN -> sb.append(' ').append(operand).append("..").append(operand2).append(" L").append(labelId)
+                    TraceEvents.LOOKUP_SWITCH_INSN -> sb.append(' ').append(operand).append(" keys L").append(labelId)
+                    TraceEvents.MULTI_ANEW_ARRAY_INSN -> sb.append(" #").append(Integer.toHexString(operand)).append(' ').append(operand2)
+                    else -> Unit
+                }
+            }
+        }
+        return sb.append(" (").append(pseudoLineNo).append(')').toString()
+    }
+}
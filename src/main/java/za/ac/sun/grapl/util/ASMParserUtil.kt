@@ -21,8 +21,8 @@ import za.ac.sun.grapl.domain.enums.EvaluationStrategies
 import za.ac.sun.grapl.domain.enums.JumpAssociations
 import za.ac.sun.grapl.domain.enums.ModifierTypes
 import za.ac.sun.grapl.domain.enums.Operators
+import za.ac.sun.grapl.domain.meta.MethodDescriptorInfo
 import java.util.*
-import java.util.stream.IntStream
 
 object ASMParserUtil : Opcodes {
     private val PRIMITIVES: Map<Char, String> = mapOf(
@@ -37,6 +37,10 @@ object ASMParserUtil : Opcodes {
             'V' to "VOID"
     )
     private val OPERANDS: Set<String> = setOf("ADD", "SUB", "MUL", "DIV", "REM", "OR", "XOR", "AND", "SHR", "SHL", "USHR")
+    private const val MAX_CACHED_DESCRIPTORS = 16384
+    private const val MAX_CACHED_TYPES = 16384
+    private val METHOD_DESCRIPTORS = BoundedCache<String, MethodDescriptorInfo>(MAX_CACHED_DESCRIPTORS)
+    private val READABLE_TYPES = BoundedCache<String, String>(MAX_CACHED_TYPES)
 
     @JvmField
     val NULLARY_JUMPS: Set<String> = setOf("GOTO", "TABLESWITCH", "LOOKUPSWITCH")
@@ -54,11 +58,13 @@ object ASMParserUtil : Opcodes {
      * @return a list of the parameters
      */
     @JvmStatic
-    fun obtainParameters(signature: String): List<String> {
+    fun obtainParameters(signature: String): List<String> = parseMethodDescriptor(signature).parameters
+
+    private fun decodeParameters(signature: String): List<String> {
         val parameters: MutableList<String> = ArrayList()
-        val sigArr = signature.substring(1, signature.indexOf(')')).toCharArray()
         val sb = StringBuilder()
-        IntStream.range(0, sigArr.size).mapToObj { i: Int -> sigArr[i] }.forEach { c: Char ->
+        for (i in 1 until signature.indexOf(')')) {
+            val c = signature[i]
             if (c == ';') {
                 parameters.add(sb.toString())
                 sb.delete(0, sb.length)
@@ -69,7 +75,7 @@ object ASMParserUtil : Opcodes {
                 sb.append(c)
             } else if (isArray(c)) sb.append(c) else sb.append(c)
         }
-        return parameters
+        return Collections.unmodifiableList(parameters)
     }
 
     /**
@@ -79,8 +85,27 @@ object ASMParserUtil : Opcodes {
      * @return a list of the parameters.
      */
     @JvmStatic
-    fun obtainMethodReturnType(signature: String): String {
-        return signature.substring(signature.lastIndexOf(')') + 1).replace(";".toRegex(), "")
+    fun obtainMethodReturnType(signature: String): String = parseMethodDescriptor(signature).returnType
+
+    /**
+     * Decodes a method signature into its parameter and return types along with their readable names and evaluation
+     * strategies. Decoded signatures are cached and shared between all files in a run.
+     *
+     * @param signature the raw method signature from ASM5
+     * @return the decoded method signature.
+     */
+    @JvmStatic
+    fun parseMethodDescriptor(signature: String): MethodDescriptorInfo = METHOD_DESCRIPTORS.getOrPut(signature) {
+        val parameters = decodeParameters(signature)
+        val returnType = signature.substring(signature.lastIndexOf(')') + 1).replace(";", "")
+        MethodDescriptorInfo(
+                parameters = parameters,
+                readableParameters = parameters.map { getReadableType(it) },
+                parameterEvaluationStrategies = parameters.map { determineEvaluationStrategy(it, false) },
+                returnType = returnType,
+                readableReturnType = getReadableType(returnType),
+                returnEvaluationStrategy = determineEvaluationStrategy(returnType, true)
+        )
     }
 
     /**
@@ -151,10 +176,11 @@ object ASMParserUtil : Opcodes {
      * @return a more "readable" variant of the type.
      */
     @JvmStatic
-    fun getReadableType(rawType: String): String {
+    fun getReadableType(rawType: String): String = READABLE_TYPES.getOrPut(rawType) { decodeReadableType(rawType) }
+
+    private fun decodeReadableType(rawType: String): String {
         val sb = StringBuilder()
-        val sigArr = rawType.toCharArray()
-        IntStream.range(0, sigArr.size).mapToObj { i: Int -> sigArr[i] }.forEach { c: Char ->
+        for (c in rawType) {
             if (isPrimitive(c) && sb.indexOf("L") == -1) {
                 sb.append(c)
             } else if (isArray(c) || isObject(c)) sb.append(c)
@@ -229,8 +255,7 @@ object ASMParserUtil : Opcodes {
      */
     private fun convertAllPrimitivesToName(signature: String): String {
         val sb = StringBuilder()
-        val sigArr = signature.toCharArray()
-        IntStream.range(0, sigArr.size).mapToObj { i: Int -> sigArr[i] }.forEach { c: Char ->
+        for (c in signature) {
             if (isPrimitive(c)) {
                 sb.append(PRIMITIVES[c])
             } else {
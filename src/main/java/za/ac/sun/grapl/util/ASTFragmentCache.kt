@@ -0,0 +1,446 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.util
+
+import org.apache.logging.log4j.LogManager
+import org.apache.logging.log4j.Logger
+import za.ac.sun.grapl.controllers.ASTController
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.enums.EvaluationStrategies
+import za.ac.sun.grapl.domain.enums.ModifierTypes
+import za.ac.sun.grapl.domain.models.GraPLVertex
+import za.ac.sun.grapl.domain.models.MethodDescriptorVertex
+import za.ac.sun.grapl.domain.models.vertices.*
+import za.ac.sun.grapl.hooks.IHook
+import java.io.*
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.*
+
+/**
+ * An on-disk cache of the hook operations projected for each class, keyed by the content hash of the class and the
+ * version of the projection that produced it. On a hit, the operations are replayed straight into a hook without visiting the
+ * class. Orders are stored relative to the first order of the class so that a fragment can be replayed from any order.
+ *
+ * @param directory the directory the fragments are kept in.
+ * @param version   the version of the projection the fragments were produced by.
+ */
+class ASTFragmentCache @JvmOverloads constructor(
+        private val directory: File,
+        val version: String = DEFAULT_VERSION
+) {
+
+    private fun fragmentFile(hash: String) =
+            File(directory, IngestionManifest.hash("$version:$hash".toByteArray(Charsets.UTF_8)) + FRAGMENT_EXTENSION)
+
+    fun contains(hash: String) = fragmentFile(hash).isFile
+
+    /**
+     * Stores the encoded fragment of the class with the given content hash.
+     *
+     * @param hash     the content hash of the class.
+     * @param fragment the fragment as produced by an [Encoder].
+     */
+    fun put(hash: String, fragment: ByteArray) {
+        try {
+            directory.mkdirs()
+            val target = fragmentFile(hash)
+            val temp = File.createTempFile(target.name, ".tmp", directory)
+            Files.write(temp.toPath(), fragment)
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        } catch (e: IOException) {
+            logger.error("IOException encountered while caching the AST fragment of $hash.", e)
+        }
+    }
+
+    /**
+     * Returns the cached fragment of the class with the given content hash, or null if it is not cached by this version
+     * of the projection.
+     *
+     * @param hash the content hash of the class.
+     */
+    fun get(hash: String): ByteArray? {
+        val file = fragmentFile(hash)
+        if (!file.isFile) return null
+        val fragment = try {
+            Files.readAllBytes(file.toPath())
+        } catch (e: IOException) {
+            logger.warn("Discarding unreadable AST fragment ${file.name}.", e)
+            file.delete()
+            return null
+        }
+        return if (versionOf(fragment) == version) fragment else null
+    }
+
+    /**
+     * Removes the cached fragment of the class with the given content hash, e.g. once it turned out to be corrupt.
+     *
+     * @param hash the content hash of the class.
+     */
+    fun remove(hash: String) {
+        fragmentFile(hash).delete()
+    }
+
+    /**
+     * Replays the cached fragment of the class with the given content hash into the hook. The fragment is decoded in
+     * full before any operation reaches the hook so that a corrupt fragment leaves the graph untouched.
+     *
+     * @param hash       the content hash of the class.
+     * @param hook       the hook to replay the operations to.
+     * @param firstOrder the order to relocate the first order of the class to.
+     * @param maxOrders  the number of orders available from the first order. A fragment taking up more orders is not
+     * replayed.
+     * @return the number of orders taken up by the replayed class or -1 if the fragment is not cached or does not fit.
+     */
+    @JvmOverloads
+    fun replay(hash: String, hook: IHook, firstOrder: Int, maxOrders: Int = Int.MAX_VALUE): Int {
+        val file = fragmentFile(hash)
+        if (!file.isFile) return -1
+        val decoder = try {
+            Decoder(Files.readAllBytes(file.toPath()), firstOrder).apply { decode() }
+        } catch (e: IOException) {
+            logger.warn("Discarding unreadable AST fragment ${file.name}.", e)
+            file.delete()
+            return -1
+        }
+        if (decoder.version != version || decoder.orderSpan > maxOrders) return -1
+        decoder.operations.forEach { op -> op(hook) }
+        return decoder.orderSpan
+    }
+
+    fun clear() {
+        directory.listFiles { f -> f.name.endsWith(FRAGMENT_EXTENSION) }?.forEach { it.delete() }
+    }
+
+    /**
+     * Encodes the hook operations of a single class. Vertices which are passed to the hook more than once are only
+     * written the first time and referred to by index afterwards.
+     *
+     * @param firstOrder the first order assigned to the class.
+     * @param version    the version of the projection producing the fragment.
+     */
+    class Encoder(private val firstOrder: Int, version: String) {
+        private val bytes = ByteArrayOutputStream()
+        private val out = DataOutputStream(bytes)
+        private val vertexIndex = IdentityHashMap<GraPLVertex, Int>()
+        private var maxRelativeOrder = -1
+
+        /**
+         * False once an operation could not be encoded, in which case the fragment must not be cached.
+         */
+        var isValid = true
+            private set
+
+        init {
+            out.writeInt(MAGIC)
+            out.writeShort(FORMAT_VERSION)
+            out.writeUTF(version)
+        }
+
+        private fun writeOrder(order: Int) {
+            if (order >= firstOrder) {
+                out.writeBoolean(true)
+                out.writeInt(order - firstOrder)
+                if (order - firstOrder > maxRelativeOrder) maxRelativeOrder = order - firstOrder
+            } else {
+                out.writeBoolean(false)
+                out.writeInt(order)
+            }
+        }
+
+        private fun writeVertex(v: GraPLVertex) {
+            val index = vertexIndex[v]
+            if (index != null) {
+                out.writeByte(V_REFERENCE)
+                out.writeInt(index)
+                return
+            }
+            when (v) {
+                is MetaDataVertex -> {
+                    out.writeByte(V_META_DATA); out.writeUTF(v.language); out.writeUTF(v.version)
+                }
+                is FileVertex -> {
+                    out.writeByte(V_FILE); out.writeUTF(v.name); writeOrder(v.order)
+                }
+                is NamespaceBlockVertex -> {
+                    out.writeByte(V_NAMESPACE_BLOCK); out.writeUTF(v.name); out.writeUTF(v.fullName); writeOrder(v.order)
+                }
+                is MethodVertex -> {
+                    out.writeByte(V_METHOD); out.writeUTF(v.name); out.writeUTF(v.fullName); out.writeUTF(v.signature)
+                    out.writeInt(v.lineNumber); writeOrder(v.order)
+                }
+                is MethodParameterInVertex -> {
+                    out.writeByte(V_METHOD_PARAMETER_IN); out.writeUTF(v.code); out.writeUTF(v.name)
+                    out.writeUTF(v.evaluationStrategy.name); out.writeUTF(v.typeFullName); out.writeInt(v.lineNumber)
+                    writeOrder(v.order)
+                }
+                is MethodReturnVertex -> {
+                    out.writeByte(V_METHOD_RETURN); out.writeUTF(v.name); out.writeUTF(v.typeFullName)
+                    out.writeUTF(v.evaluationStrategy.name); out.writeInt(v.lineNumber); writeOrder(v.order)
+                }
+                is ModifierVertex -> {
+                    out.writeByte(V_MODIFIER); out.writeUTF(v.name.name); writeOrder(v.order)
+                }
+                is BlockVertex -> {
+                    out.writeByte(V_BLOCK); out.writeUTF(v.name); writeOrder(v.order); out.writeInt(v.argumentIndex)
+                    out.writeUTF(v.typeFullName); out.writeInt(v.lineNumber)
+                }
+                is ControlStructureVertex -> {
+                    out.writeByte(V_CONTROL_STRUCTURE); out.writeUTF(v.name); out.writeInt(v.lineNumber)
+                    writeOrder(v.order); out.writeInt(v.argumentIndex)
+                }
+                is LiteralVertex -> {
+                    out.writeByte(V_LITERAL); out.writeUTF(v.name); writeOrder(v.order); out.writeInt(v.argumentIndex)
+                    out.writeUTF(v.typeFullName); out.writeInt(v.lineNumber)
+                }
+                is LocalVertex -> {
+                    out.writeByte(V_LOCAL); out.writeUTF(v.code); out.writeUTF(v.name); out.writeUTF(v.typeFullName)
+                    out.writeInt(v.lineNumber); writeOrder(v.order)
+                }
+                else -> throw IOException("Vertex type ${v.javaClass.simpleName} is not supported by the fragment cache")
+            }
+            vertexIndex[v] = vertexIndex.size
+        }
+
+        /**
+         * Encodes a single operation, invalidating the fragment if it cannot be encoded.
+         */
+        fun write(opcode: Int, body: Encoder.() -> Unit) {
+            if (!isValid) return
+            try {
+                out.writeByte(opcode)
+                body()
+            } catch (e: IOException) {
+                logger.debug("Not encoding fragment: {}", e.message)
+                isValid = false
+            }
+        }
+
+        fun vertex(v: GraPLVertex) = writeVertex(v)
+
+        fun order(order: Int) = writeOrder(order)
+
+        fun string(s: String) = out.writeUTF(s)
+
+        fun edge(edgeLabel: EdgeLabels) = out.writeUTF(edgeLabel.name)
+
+        /**
+         * Returns the encoded fragment or null if an operation could not be encoded.
+         */
+        fun toByteArray(): ByteArray? {
+            if (!isValid) return null
+            out.writeByte(OP_END)
+            out.writeInt(maxRelativeOrder + 1)
+            out.flush()
+            return bytes.toByteArray()
+        }
+    }
+
+    /**
+     * Decodes a fragment into operations on a hook, relocating the orders of the class to the given first order.
+     */
+    private class Decoder(bytes: ByteArray, private val firstOrder: Int) {
+        private val input = DataInputStream(ByteArrayInputStream(bytes))
+        private val vertices = ArrayList<GraPLVertex>()
+        val operations = ArrayList<(IHook) -> Unit>()
+        var version = ""
+        var orderSpan = 0
+
+        private fun readOrder() = if (input.readBoolean()) firstOrder + input.readInt() else input.readInt()
+
+        private inline fun <reified T : GraPLVertex> readVertex(): T {
+            val v = when (val tag = input.readByte().toInt()) {
+                V_REFERENCE -> return vertices.getOrNull(input.readInt()) as? T ?: throw IOException("Bad vertex reference")
+                V_META_DATA -> MetaDataVertex(input.readUTF(), input.readUTF())
+                V_FILE -> FileVertex(input.readUTF(), readOrder())
+                V_NAMESPACE_BLOCK -> NamespaceBlockVertex(input.readUTF(), input.readUTF(), readOrder())
+                V_METHOD -> MethodVertex(input.readUTF(), input.readUTF(), input.readUTF(), input.readInt(), readOrder())
+                V_METHOD_PARAMETER_IN -> MethodParameterInVertex(input.readUTF(), input.readUTF(),
+                        EvaluationStrategies.valueOf(input.readUTF()), input.readUTF(), input.readInt(), readOrder())
+                V_METHOD_RETURN -> MethodReturnVertex(input.readUTF(), input.readUTF(),
+                        EvaluationStrategies.valueOf(input.readUTF()), input.readInt(), readOrder())
+                V_MODIFIER -> ModifierVertex(ModifierTypes.valueOf(input.readUTF()), readOrder())
+                V_BLOCK -> BlockVertex(input.readUTF(), readOrder(), input.readInt(), input.readUTF(), input.readInt())
+                V_CONTROL_STRUCTURE -> ControlStructureVertex(input.readUTF(), input.readInt(), readOrder(), input.readInt())
+                V_LITERAL -> LiteralVertex(input.readUTF(), readOrder(), input.readInt(), input.readUTF(), input.readInt())
+                V_LOCAL -> LocalVertex(input.readUTF(), input.readUTF(), input.readUTF(), input.readInt(), readOrder())
+                else -> throw IOException("Unknown vertex tag $tag")
+            }
+            vertices.add(v)
+            return v as? T ?: throw IOException("Unexpected vertex ${v.javaClass.simpleName}")
+        }
+
+        @Throws(IOException::class)
+        fun decode() {
+            try {
+                if (input.readInt() != MAGIC || input.readShort().toInt() != FORMAT_VERSION) throw IOException("Not an AST fragment")
+                version = input.readUTF()
+                while (true) {
+                    val op: (IHook) -> Unit = when (val opcode = input.readByte().toInt()) {
+                        OP_END -> {
+                            orderSpan = input.readInt()
+                            return
+                        }
+                        OP_REGISTER_META_DATA -> readVertex<MetaDataVertex>().let { v -> { h -> h.registerMetaData(v) } }
+                        OP_ADD_FILE_VERTEX -> readVertex<FileVertex>().let { v -> { h -> h.addFileVertex(v) } }
+                        OP_ADD_TO_METHOD_DESCRIPTOR -> {
+                            val m = readVertex<MethodVertex>()
+                            val d = readVertex<MethodDescriptorVertex>();
+                            { h -> h.createAndAddToMethod(m, d) }
+                        }
+                        OP_ADD_TO_METHOD_MODIFIER -> {
+                            val m = readVertex<MethodVertex>()
+                            val d = readVertex<ModifierVertex>();
+                            { h -> h.createAndAddToMethod(m, d) }
+                        }
+                        OP_JOIN_FILE_NAMESPACE -> {
+                            val f = readVertex<FileVertex>()
+                            val n = readVertex<NamespaceBlockVertex>();
+                            { h -> h.joinFileVertexTo(f, n) }
+                        }
+                        OP_JOIN_FILE_METHOD -> {
+                            val f = readVertex<FileVertex>()
+                            val m = readVertex<MethodVertex>();
+                            { h -> h.joinFileVertexTo(f, m) }
+                        }
+                        OP_JOIN_NAMESPACE_BLOCKS -> {
+                            val from = readVertex<NamespaceBlockVertex>()
+                            val to = readVertex<NamespaceBlockVertex>();
+                            { h -> h.joinNamespaceBlocks(from, to) }
+                        }
+                        OP_ASSIGN_TO_METHOD -> {
+                            val m = readVertex<MethodVertex>()
+                            val v = readVertex<GraPLVertex>();
+                            { h -> h.createAndAssignToBlock(m, v) }
+                        }
+                        OP_ASSIGN_TO_METHOD_BLOCK -> {
+                            val m = readVertex<MethodVertex>()
+                            val v = readVertex<GraPLVertex>()
+                            val blockOrder = readOrder();
+                            { h -> h.createAndAssignToBlock(m, v, blockOrder) }
+                        }
+                        OP_ASSIGN_TO_BLOCK -> {
+                            val v = readVertex<GraPLVertex>()
+                            val blockOrder = readOrder();
+                            { h -> h.createAndAssignToBlock(v, blockOrder) }
+                        }
+                        OP_UPDATE_METHOD_PROPERTY -> {
+                            val m = readVertex<MethodVertex>()
+                            val order = readOrder()
+                            val key = input.readUTF()
+                            val value = input.readUTF();
+                            { h -> h.updateASTVertexProperty(m, order, key, value) }
+                        }
+                        OP_UPDATE_PROPERTY -> {
+                            val order = readOrder()
+                            val key = input.readUTF()
+                            val value = input.readUTF();
+                            { h -> h.updateASTVertexProperty(order, key, value) }
+                        }
+                        OP_CREATE_VERTEX -> readVertex<GraPLVertex>().let { v -> { h -> h.createVertex(v) } }
+                        OP_JOIN_BY_ORDER -> {
+                            val from = readOrder()
+                            val to = readOrder()
+                            val edgeLabel = EdgeLabels.valueOf(input.readUTF());
+                            { h -> h.joinASTVerticesByOrder(from, to, edgeLabel) }
+                        }
+                        else -> throw IOException("Unknown operation $opcode")
+                    }
+                    operations.add(op)
+                }
+            } catch (e: EOFException) {
+                throw IOException("Truncated AST fragment", e)
+            } catch (e: IllegalArgumentException) {
+                throw IOException("Unknown constant in AST fragment", e)
+            }
+        }
+    }
+
+    companion object {
+        private val logger: Logger = LogManager.getLogger()
+        private const val MAGIC = 0x4A324146
+        private const val FORMAT_VERSION = 1
+        private const val FRAGMENT_EXTENSION = ".ast"
+
+        /**
+         * The version of the projection made up of [ASTController.PROJECTION_VERSION] and the version of j2GraPL as given
+         * by the manifest of its jar. When j2GraPL is not run from its jar, the hash of the compiled [ASTController] stands
+         * in for the version of j2GraPL so that fragments of another build are never replayed.
+         */
+        @JvmField
+        val DEFAULT_VERSION: String = "${ASTController.PROJECTION_VERSION}:" +
+                (ASTFragmentCache::class.java.`package`?.implementationVersion ?: buildHash())
+
+        private fun buildHash(): String =
+                ASTController::class.java.getResourceAsStream("ASTController.class")?.use { IngestionManifest.hash(it.readBytes()) }
+                        ?: UUID.randomUUID().toString()
+
+        /**
+         * Returns the number of orders taken up by the class encoded in the given fragment, which closes with it.
+         */
+        @JvmStatic
+        fun orderSpan(fragment: ByteArray): Int = DataInputStream(ByteArrayInputStream(fragment, fragment.size - 4, 4)).readInt()
+
+        /**
+         * Decodes the given fragment in full, relocating the orders of the class to the given first order, and returns
+         * the operations to apply to a hook in turn.
+         *
+         * @param fragment   the fragment as produced by an [Encoder].
+         * @param firstOrder the order to relocate the first order of the class to.
+         * @throws IOException if the fragment is corrupt.
+         */
+        @JvmStatic
+        @Throws(IOException::class)
+        fun decode(fragment: ByteArray, firstOrder: Int): List<(IHook) -> Unit> =
+                Decoder(fragment, firstOrder).apply { decode() }.operations
+
+        private fun versionOf(fragment: ByteArray): String? = try {
+            val input = DataInputStream(ByteArrayInputStream(fragment))
+            if (input.readInt() == MAGIC && input.readShort().toInt() == FORMAT_VERSION) input.readUTF() else null
+        } catch (e: IOException) {
+            null
+        }
+
+        const val OP_END = 0
+        const val OP_REGISTER_META_DATA = 1
+        const val OP_ADD_FILE_VERTEX = 2
+        const val OP_ADD_TO_METHOD_DESCRIPTOR = 3
+        const val OP_ADD_TO_METHOD_MODIFIER = 4
+        const val OP_JOIN_FILE_NAMESPACE = 5
+        const val OP_JOIN_FILE_METHOD = 6
+        const val OP_JOIN_NAMESPACE_BLOCKS = 7
+        const val OP_ASSIGN_TO_METHOD = 8
+        const val OP_ASSIGN_TO_METHOD_BLOCK = 9
+        const val OP_ASSIGN_TO_BLOCK = 10
+        const val OP_UPDATE_METHOD_PROPERTY = 11
+        const val OP_UPDATE_PROPERTY = 12
+        const val OP_CREATE_VERTEX = 13
+        const val OP_JOIN_BY_ORDER = 14
+
+        private const val V_REFERENCE = 0
+        private const val V_META_DATA = 1
+        private const val V_FILE = 2
+        private const val V_NAMESPACE_BLOCK = 3
+        private const val V_METHOD = 4
+        private const val V_METHOD_PARAMETER_IN = 5
+        private const val V_METHOD_RETURN = 6
+        private const val V_MODIFIER = 7
+        private const val V_BLOCK = 8
+        private const val V_CONTROL_STRUCTURE = 9
+        private const val V_LITERAL = 10
+        private const val V_LOCAL = 11
+    }
+}
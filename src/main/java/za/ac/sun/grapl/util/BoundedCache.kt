@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.util
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A thread-safe cache which holds at most the given number of entries. Once the cache is full, newly computed values
+ * are returned without being cached so that the entries which were seen first, usually the most common ones, stay.
+ *
+ * @param capacity the maximum number of entries to cache.
+ * @throws IllegalArgumentException if the capacity is less than 1.
+ */
+class BoundedCache<K, V>(private val capacity: Int) {
+
+    private val entries: ConcurrentHashMap<K, V>
+
+    init {
+        require(capacity >= 1) { "The capacity must be at least 1!" }
+        entries = ConcurrentHashMap()
+    }
+
+    val size: Int
+        get() = entries.size
+
+    /**
+     * Returns the value cached for the given key, computing it if it is absent.
+     *
+     * @param key     the key to look up.
+     * @param compute computes the value if it is not cached.
+     */
+    fun getOrPut(key: K, compute: () -> V): V {
+        entries[key]?.let { return it }
+        val value = compute()
+        if (entries.size >= capacity) return value
+        return entries.putIfAbsent(key, value) ?: value
+    }
+
+    fun clear() = entries.clear()
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.util
+
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.OutputStream
+import java.net.URI
+import javax.tools.FileObject
+import javax.tools.ForwardingJavaFileManager
+import javax.tools.JavaFileManager
+import javax.tools.JavaFileObject
+import javax.tools.SimpleJavaFileObject
+import javax.tools.StandardJavaFileManager
+
+/**
+ * A [JavaFileManager] which keeps the class files generated by the compiler in memory instead of writing them next to
+ * their sources. Sources and dependencies are still read through the given file manager.
+ *
+ * @param fileManager the file manager to read sources and dependencies with.
+ */
+class InMemoryClassFileManager(fileManager: StandardJavaFileManager) : ForwardingJavaFileManager<StandardJavaFileManager>(fileManager) {
+
+    private val outputs = LinkedHashMap<String, ClassFileObject>()
+
+    /**
+     * The bytecode of each generated class by its binary name, in the order the classes were generated.
+     */
+    val classes: Map<String, ByteArray>
+        get() = outputs.mapValues { (_, classFile) -> classFile.bytes }
+
+    fun getJavaFileObjectsFromFiles(files: Iterable<File>): Iterable<JavaFileObject> =
+            fileManager.getJavaFileObjectsFromFiles(files)
+
+    override fun getJavaFileForOutput(location: JavaFileManager.Location, className: String, kind: JavaFileObject.Kind,
+                                      sibling: FileObject?): JavaFileObject {
+        if (kind != JavaFileObject.Kind.CLASS) return super.getJavaFileForOutput(location, className, kind, sibling)
+        return ClassFileObject(className).apply { outputs[className] = this }
+    }
+
+    private class ClassFileObject(className: String) :
+            SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + JavaFileObject.Kind.CLASS.extension), JavaFileObject.Kind.CLASS) {
+        private val content = ByteArrayOutputStream()
+
+        val bytes: ByteArray
+            get() = content.toByteArray()
+
+        override fun openOutputStream(): OutputStream {
+            content.reset()
+            return content
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.util
+
+import java.io.File
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.security.MessageDigest
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Records the content hash of every class fired into the graph so that classes which have not changed since the last
+ * ingestion can be skipped. The manifest is kept as a plain text file with one "hash class-name" pair per line, headed
+ * by the max order of the graph once the ingestion was complete.
+ *
+ * The max order ties the manifest to the graph it describes. A fire into a graph which does not end at the recorded
+ * max order, e.g. a fresh or cleared graph, discards the manifest so that every class is projected again. Hooks offer
+ * no way to remove a subgraph, so a class which changed or was removed since it was recorded can only be fired again
+ * into a cleared graph. Such classes are found by [staleClasses] and [isStale].
+ *
+ * @param file the file the manifest is read from and saved to.
+ */
+class IngestionManifest(private val file: File) {
+
+    private val hashes = ConcurrentHashMap<String, String>()
+    private val fired: MutableSet<String> = ConcurrentHashMap.newKeySet()
+    private var graphMaxOrder: Int? = null
+
+    val size: Int
+        get() = hashes.size
+
+    /**
+     * The recorded classes which have not been fired or skipped since the fire began.
+     */
+    val unfiredClasses: Set<String>
+        get() = hashes.keys.filterTo(HashSet()) { className -> !fired.contains(className) }
+
+    init {
+        if (file.isFile) {
+            Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)
+                    .map { line -> line.trim() }
+                    .filter { line -> line.isNotEmpty() }
+                    .forEach { line ->
+                        if (line.startsWith(MAX_ORDER_HEADER)) {
+                            graphMaxOrder = line.substring(MAX_ORDER_HEADER.length).trim().toIntOrNull()
+                            return@forEach
+                        }
+                        val separator = line.indexOf(' ')
+                        if (separator > 0) hashes[line.substring(separator + 1)] = line.substring(0, separator)
+                    }
+        }
+    }
+
+    /**
+     * Starts a fire into a graph. If the graph does not end at the max order recorded with the manifest, it does not
+     * hold the ingestion the manifest describes and all recorded classes are forgotten.
+     *
+     * @param maxOrder the max order of the graph before anything is fired.
+     */
+    fun beginFire(maxOrder: Int) {
+        fired.clear()
+        if (graphMaxOrder != maxOrder) hashes.clear()
+    }
+
+    /**
+     * Completes a fire by pruning the classes which were not fired and recording the max order of the graph.
+     *
+     * @param maxOrder the max order of the graph once everything has been fired.
+     */
+    fun endFire(maxOrder: Int) {
+        hashes.keys.retainAll(fired)
+        graphMaxOrder = maxOrder
+    }
+
+    /**
+     * Determines if the class was fired before with exactly the same content.
+     *
+     * @param className the internal name of the class.
+     * @param hash      the content hash of the class as given by [hash].
+     */
+    fun isUnchanged(className: String, hash: String) = hashes[className] == hash
+
+    /**
+     * Determines if the class was recorded with different content before the current fire, i.e. its old subgraph is
+     * in the graph.
+     *
+     * @param className the internal name of the class.
+     * @param hash      the content hash of the class as given by [hash].
+     */
+    fun isStale(className: String, hash: String): Boolean {
+        val previous = hashes[className] ?: return false
+        return previous != hash && !fired.contains(className)
+    }
+
+    /**
+     * Returns the recorded classes which are missing from the given classes or whose content has changed.
+     *
+     * @param classes the content hash of each class about to be fired, keyed by the internal name of the class.
+     */
+    fun staleClasses(classes: Map<String, String>): Set<String> =
+            hashes.entries.filter { (className, hash) -> classes[className] != hash }.mapTo(TreeSet()) { it.key }
+
+    /**
+     * Records that the class with the given content is in the graph, either because it was fired or because it was
+     * skipped as unchanged.
+     *
+     * @param className the internal name of the class.
+     * @param hash      the content hash of the class as given by [hash].
+     */
+    fun record(className: String, hash: String) {
+        fired.add(className)
+        hashes[className] = hash
+    }
+
+    fun getHash(className: String): String? = hashes[className]
+
+    /**
+     * Writes the manifest to its file, creating any parent directories if necessary.
+     *
+     * @throws IOException if the manifest could not be written.
+     */
+    @Throws(IOException::class)
+    fun save() {
+        file.absoluteFile.parentFile?.mkdirs()
+        val lines = hashes.entries.sortedBy { it.key }.map { (className, hash) -> "$hash $className" }
+        Files.write(file.toPath(), listOfNotNull(graphMaxOrder?.let { "$MAX_ORDER_HEADER $it" }) + lines, StandardCharsets.UTF_8)
+    }
+
+    fun clear() {
+        hashes.clear()
+        fired.clear()
+        graphMaxOrder = null
+    }
+
+    companion object {
+        private val HEX_DIGITS = "0123456789abcdef".toCharArray()
+        private const val MAX_ORDER_HEADER = "#maxOrder"
+
+        /**
+         * Returns the hex encoded SHA-256 hash of the given class file contents.
+         */
+        @JvmStatic
+        fun hash(classBytes: ByteArray): String {
+            val digest = MessageDigest.getInstance("SHA-256").digest(classBytes)
+            val sb = StringBuilder(digest.size * 2)
+            digest.forEach { b ->
+                sb.append(HEX_DIGITS[(b.toInt() shr 4) and 0xF])
+                sb.append(HEX_DIGITS[b.toInt() and 0xF])
+            }
+            return sb.toString()
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 David Baker Effendi
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package za.ac.sun.grapl.util
+
+import org.objectweb.asm.util.ASMifier
+import za.ac.sun.grapl.domain.enums.OpcodeKinds
+import za.ac.sun.grapl.domain.meta.OpcodeInfo
+import za.ac.sun.grapl.domain.stack.operand.ConstantItem
+import za.ac.sun.grapl.domain.stack.operand.OperatorItem
+
+/**
+ * Classifies every opcode once up front so that visitors and controllers can dispatch on the opcode directly instead
+ * of matching on its mnemonic for every instruction. Constant and operator opcodes also share a single immutable
+ * operand stack item between all pushes.
+ */
+object OpcodeTable {
+
+    private val TABLE: Array<OpcodeInfo> = Array(ASMifier.OPCODES.size) { opcode -> classify(ASMifier.OPCODES[opcode]) }
+
+    /**
+     * Returns the meta data of the given opcode.
+     *
+     * @param opcode the opcode of an instruction.
+     */
+    @JvmStatic
+    operator fun get(opcode: Int): OpcodeInfo = TABLE[opcode]
+
+    private fun classify(name: String): OpcodeInfo {
+        val kind = when {
+            ASMParserUtil.isConstant(name) -> OpcodeKinds.CONSTANT
+            ASMParserUtil.isOperator(name) -> OpcodeKinds.OPERATOR
+            ASMParserUtil.isLoad(name) -> OpcodeKinds.LOAD
+            ASMParserUtil.isStore(name) -> OpcodeKinds.STORE
+            ASMParserUtil.NULLARY_JUMPS.contains(name) -> OpcodeKinds.NULLARY_JUMP
+            ASMParserUtil.UNARY_JUMPS.contains(name) -> OpcodeKinds.UNARY_JUMP
+            ASMParserUtil.BINARY_JUMPS.contains(name) -> OpcodeKinds.BINARY_JUMP
+            else -> OpcodeKinds.OTHER
+        }
+        val type = when {
+            name.isEmpty() -> "UNKNOWN"
+            name[0] == 'L' -> "LONG"
+            else -> ASMParserUtil.getReadableType(name[0])
+        }
+        val operator = if (kind == OpcodeKinds.OPERATOR) name.substring(1) else null
+        val constant = if (kind == OpcodeKinds.CONSTANT) name.substring(name.indexOf('_') + 1).replace("M", "-") else null
+        return OpcodeInfo(
+                name = name,
+                kind = kind,
+                type = type,
+                stackType = ASMParserUtil.getStackOperationType(name),
+                jumpType = ASMParserUtil.getBinaryJumpType(name),
+                operator = operator,
+                constant = constant,
+                equality = ASMParserUtil.parseEquality(name),
+                flippedEquality = ASMParserUtil.parseAndFlipEquality(name),
+                item = when {
+                    constant != null -> ConstantItem(constant, type)
+                    operator != null -> OperatorItem(operator, type)
+                    else -> null
+                }
+        )
+    }
+}
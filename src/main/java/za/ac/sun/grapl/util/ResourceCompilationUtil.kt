@@ -21,19 +21,39 @@ import java.io.BufferedOutputStream
 import java.io.File
 import java.io.FileOutputStream
 import java.io.IOException
+import java.io.UncheckedIOException
+import java.nio.Buffer
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
 import java.nio.file.Files
+import java.nio.file.LinkOption
 import java.nio.file.Path
 import java.nio.file.Paths
+import java.nio.file.StandardOpenOption
 import java.util.*
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveTask
 import java.util.function.Consumer
 import java.util.jar.JarEntry
 import java.util.jar.JarFile
+import java.util.jar.JarInputStream
 import java.util.stream.Collectors
+import java.util.stream.Stream
+import java.util.stream.StreamSupport
+import javax.tools.Diagnostic
+import javax.tools.DiagnosticCollector
+import javax.tools.JavaFileObject
 import javax.tools.ToolProvider
 
 object ResourceCompilationUtil {
     val logger: Logger = LogManager.getLogger()
 
+    /**
+     * Class files up to this size are read through a direct buffer pooled per thread, larger ones are memory-mapped.
+     */
+    private const val POOLED_BUFFER_SIZE = 1 shl 20
+    private val pooledBuffer = ThreadLocal.withInitial { ByteBuffer.allocateDirect(POOLED_BUFFER_SIZE) }
+
     /**
      * Validates the given file as a directory that exists.
      *
@@ -54,6 +74,7 @@ object ResourceCompilationUtil {
      */
     @JvmStatic
     fun compileJavaFile(file: File?) {
+        if (file != null && !isStale(file)) return
         val javac = ToolProvider.getSystemJavaCompiler()
         val fileManager = javac.getStandardFileManager(null, null, null)
         javac.getTask(null, fileManager, null, listOf("-g"), null,
@@ -61,7 +82,8 @@ object ResourceCompilationUtil {
     }
 
     /**
-     * Given a path to a directory, programmatically compile any .java files found in the directory.
+     * Given a path to a directory, programmatically compile any .java files found in the directory whose class files
+     * are missing or older than the source. The stale sources are compiled together in a single compilation.
      *
      * @param path the path to the directory
      * @throws IOException if the path is not a directory or does not exist
@@ -71,17 +93,76 @@ object ResourceCompilationUtil {
     fun compileJavaFiles(path: File) {
         validateFileAsDirectory(path)
         // Dynamically compile Java test resources
+        val staleFiles = fetchJavaFiles(path).filter { f -> isStale(f) }
+        if (staleFiles.isEmpty()) return
+        // Up-to-date classes and sources under the directory resolve any references from the stale sources
+        val options = listOf("-sourcepath", path.absolutePath,
+                "-classpath", path.absolutePath + File.pathSeparator + System.getProperty("java.class.path"))
         val javac = ToolProvider.getSystemJavaCompiler()
-        val fileManager = javac.getStandardFileManager(null, null, null)
-        val fileList = LinkedList<File>()
+        javac.getStandardFileManager(null, null, null).use { fileManager ->
+            javac.getTask(null, fileManager, null, listOf("-g") + options, null,
+                    fileManager.getJavaFileObjectsFromFiles(staleFiles)).call()
+        }
+    }
+
+    /**
+     * Given a collection of Java source files, programmatically compiles them into memory. No class files are written
+     * so the bytecode of every class, including nested and anonymous classes, can be handed straight to a
+     * [org.objectweb.asm.ClassReader].
+     *
+     * @param files     the source files to compile.
+     * @param classPath an optional directory of classes and sources which the given sources may refer to.
+     * @return the bytecode of each compiled class by its binary name, in the order the classes were generated.
+     * @throws IOException if the sources could not be compiled.
+     */
+    @JvmStatic
+    @JvmOverloads
+    @Throws(IOException::class)
+    fun compileJavaFilesInMemory(files: Collection<File>, classPath: File? = null): Map<String, ByteArray> {
+        if (files.isEmpty()) return emptyMap()
+        val javac = ToolProvider.getSystemJavaCompiler()
+        val diagnostics = DiagnosticCollector<JavaFileObject>()
+        val options = if (classPath == null) listOf("-g")
+        else listOf("-g", "-sourcepath", classPath.absolutePath,
+                "-classpath", classPath.absolutePath + File.pathSeparator + System.getProperty("java.class.path"))
+        InMemoryClassFileManager(javac.getStandardFileManager(diagnostics, null, null)).use { fileManager ->
+            val success = javac.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(files)).call()
+            if (!success) {
+                val errors = diagnostics.diagnostics.filter { d -> d.kind == Diagnostic.Kind.ERROR }
+                throw IOException("Unable to compile ${files.size} source file(s): " + errors.joinToString("; ") { d -> d.getMessage(null) })
+            }
+            return fileManager.classes
+        }
+    }
+
+    /**
+     * Returns all the Java source files under a given directory recursively.
+     *
+     * @param path the path to the directory
+     * @throws IOException if the path is not a directory or does not exist
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun fetchJavaFiles(path: File): List<File> {
+        validateFileAsDirectory(path)
         Files.walk(Paths.get(path.absolutePath)).use { walk ->
-            walk.map { obj: Path -> obj.toString() }
+            return walk.map { obj: Path -> obj.toString() }
                     .filter { f: String -> f.endsWith(".java") }
+                    .map { f: String -> File(f) }
                     .collect(Collectors.toList())
-                    .forEach(Consumer { f: String -> fileList.add(File(f)) })
         }
-        javac.getTask(null, fileManager, null, listOf("-g"), null,
-                fileManager.getJavaFileObjectsFromFiles(fileList)).call()
+    }
+
+    /**
+     * Determines if the class file compiled next to the given source file is missing or older than the source.
+     *
+     * @param javaFile the source file.
+     */
+    @JvmStatic
+    fun isStale(javaFile: File): Boolean {
+        val classFile = File(javaFile.absoluteFile.parentFile, javaFile.name.removeSuffix(".java") + ".class")
+        return !classFile.isFile || classFile.lastModified() < javaFile.lastModified()
     }
 
     /**
@@ -113,11 +194,63 @@ object ResourceCompilationUtil {
     @JvmStatic
     fun fetchClassFiles(path: File): List<File> {
         validateFileAsDirectory(path)
-        Files.walk(Paths.get(path.absolutePath)).use { walk ->
-            return walk.map { obj: Path -> obj.toString() }
-                    .filter { f: String -> f.endsWith(".class") }
-                    .map { pathname: String -> File(pathname) }
-                    .collect(Collectors.toList())
+        return ForkJoinPool.commonPool().invoke(ClassFileWalker(Paths.get(path.absolutePath)))
+    }
+
+    /**
+     * Reads the bytecode of a class file into memory. Small files are read through a direct buffer pooled by the
+     * calling thread while larger files are memory-mapped so that the class is only copied once into the heap.
+     *
+     * @param path the path to the class file.
+     * @return the bytes of the class file.
+     * @throws IOException if the file could not be read.
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun readClassBytes(path: Path): ByteArray {
+        FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+            val size = channel.size()
+            if (size > Int.MAX_VALUE) throw IOException("'$path' is too large to be a class file!")
+            val buffer: ByteBuffer
+            if (size > POOLED_BUFFER_SIZE) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+            } else {
+                buffer = pooledBuffer.get()
+                // Buffer methods are called through Buffer to remain binary compatible with Java 8
+                (buffer as Buffer).clear()
+                (buffer as Buffer).limit(size.toInt())
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) == -1) break
+                }
+                (buffer as Buffer).flip()
+            }
+            val bytes = ByteArray(buffer.remaining())
+            buffer.get(bytes)
+            return bytes
+        }
+    }
+
+    /**
+     * Collects the class files under a directory, forking a new task for each sub-directory so that large trees are
+     * walked in parallel. Symbolic links to directories are not followed.
+     *
+     * @param dir the directory to walk.
+     */
+    private class ClassFileWalker(private val dir: Path) : RecursiveTask<List<File>>() {
+        override fun compute(): List<File> {
+            val classFiles = LinkedList<File>()
+            val subWalkers = LinkedList<ClassFileWalker>()
+            Files.newDirectoryStream(dir).use { stream ->
+                stream.forEach { p: Path ->
+                    if (Files.isDirectory(p, LinkOption.NOFOLLOW_LINKS)) {
+                        subWalkers.add(ClassFileWalker(p).apply { fork() })
+                    } else if (p.toString().endsWith(".class")) {
+                        classFiles.add(p.toFile())
+                    }
+                }
+            }
+            subWalkers.forEach { walker -> classFiles.addAll(walker.join()) }
+            return classFiles
         }
     }
 
@@ -138,6 +271,129 @@ object ResourceCompilationUtil {
                 .collect(Collectors.toList())
     }
 
+    /**
+     * Returns the bytecode of all the class files inside of a JAR file, including those inside of any nested JAR files.
+     * Each entry is read straight into memory so no temporary files are written.
+     *
+     * @param jar the JarFile
+     * @return a list of the bytes of each `.class` file under the given JAR file.
+     */
+    @JvmStatic
+    fun fetchClassBytes(jar: JarFile): MutableList<ByteArray> {
+        val classBytes = LinkedList<ByteArray>()
+        jar.stream().forEach { entry: JarEntry ->
+            try {
+                when {
+                    entry.name.endsWith(".class") -> jar.getInputStream(entry).use { classBytes.add(it.readBytes()) }
+                    entry.name.endsWith(".jar") -> jar.getInputStream(entry).use { classBytes.addAll(fetchClassBytes(JarInputStream(it))) }
+                }
+            } catch (e: IOException) {
+                logger.warn("Error while reading '" + entry.name + "' from JAR.", e)
+            }
+        }
+        return classBytes
+    }
+
+    /**
+     * Returns the bytecode of all the class files inside of a JAR stream, including those inside of any nested JAR
+     * files. This is used to read JAR files nested inside of other JAR files without extracting them.
+     *
+     * @param jar the stream positioned at the start of the JAR.
+     * @return a list of the bytes of each `.class` file under the given JAR stream.
+     * @throws IOException if the stream could not be read.
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun fetchClassBytes(jar: JarInputStream): MutableList<ByteArray> {
+        val classBytes = LinkedList<ByteArray>()
+        var entry = jar.nextJarEntry
+        while (entry != null) {
+            when {
+                entry.name.endsWith(".class") -> classBytes.add(jar.readBytes())
+                // The nested stream reads up until the end of this entry so it must not be closed
+                entry.name.endsWith(".jar") -> classBytes.addAll(fetchClassBytes(JarInputStream(jar)))
+            }
+            entry = jar.nextJarEntry
+        }
+        return classBytes
+    }
+
+    /**
+     * Returns a lazily populated stream of the bytecode of the class files under the given file, which may be a class
+     * file, a directory of class files, or a JAR file. Classes are only read as the stream is consumed so that the
+     * classes do not need to be held in memory together. The stream should be closed once consumed.
+     *
+     * @param file the class file, directory, or JAR file.
+     * @return a stream of the bytes of each `.class` file found.
+     * @throws IOException if the file does not exist or the directory or JAR could not be opened.
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun streamClassBytes(file: File): Stream<ByteArray> {
+        return when {
+            file.isDirectory -> Files.walk(Paths.get(file.absolutePath))
+                    .filter { p: Path -> p.toString().endsWith(".class") && Files.isRegularFile(p) }
+                    .map { p: Path -> readClassBytesUnchecked(p) }
+            file.name.endsWith(".jar") -> {
+                val jar = JarInputStream(Files.newInputStream(file.toPath()))
+                StreamSupport.stream(Spliterators.spliteratorUnknownSize(JarClassIterator(jar), Spliterator.ORDERED), false)
+                        .onClose { jar.close() }
+            }
+            file.name.endsWith(".class") && file.isFile -> Stream.of(file.toPath()).map { p: Path -> readClassBytesUnchecked(p) }
+            !file.exists() -> throw IOException("File '" + file.name + "' does not exist!")
+            else -> Stream.empty()
+        }
+    }
+
+    private fun readClassBytesUnchecked(path: Path): ByteArray {
+        try {
+            return readClassBytes(path)
+        } catch (e: IOException) {
+            throw UncheckedIOException(e)
+        }
+    }
+
+    /**
+     * Iterates over the class files inside of a JAR stream, descending into nested JAR files as they are reached.
+     * Entries are only read when the next class is requested.
+     *
+     * @param jar the stream positioned at the start of the JAR.
+     */
+    private class JarClassIterator(jar: JarInputStream) : Iterator<ByteArray> {
+        private val jars = ArrayDeque<JarInputStream>().apply { push(jar) }
+        private var next: ByteArray? = null
+
+        private fun advance(): ByteArray? {
+            try {
+                while (jars.isNotEmpty()) {
+                    val current = jars.peek()
+                    val entry = current.nextJarEntry
+                    when {
+                        // The nested stream reads up until the end of this entry so it must not be closed
+                        entry == null -> jars.pop()
+                        entry.name.endsWith(".class") -> return current.readBytes()
+                        entry.name.endsWith(".jar") -> jars.push(JarInputStream(current))
+                    }
+                }
+                return null
+            } catch (e: IOException) {
+                throw UncheckedIOException(e)
+            }
+        }
+
+        override fun hasNext(): Boolean {
+            if (next == null) next = advance()
+            return next != null
+        }
+
+        override fun next(): ByteArray {
+            if (!hasNext()) throw NoSuchElementException()
+            val bytes = next!!
+            next = null
+            return bytes
+        }
+    }
+
     /**
      * Extracts the [JarFile] from a given [JarEntry] and writes it to a temporary file, which is returned
      * as a [File].
@@ -15,19 +15,21 @@
  */
 package za.ac.sun.grapl.visitors
 
+import org.objectweb.asm.Handle
 import org.objectweb.asm.Label
 import org.objectweb.asm.MethodVisitor
 import org.objectweb.asm.Opcodes
-import org.objectweb.asm.util.ASMifier
 import za.ac.sun.grapl.controllers.OpStackController
-import za.ac.sun.grapl.util.ASMParserUtil
-import za.ac.sun.grapl.util.ASMParserUtil.isLoad
-import za.ac.sun.grapl.util.ASMParserUtil.isStore
+import za.ac.sun.grapl.domain.enums.OpcodeKinds
+import za.ac.sun.grapl.domain.enums.TraceEvents
+import za.ac.sun.grapl.trace.TraceLog
+import za.ac.sun.grapl.util.OpcodeTable
 
 open class OpStackMethodVisitor(
         mv: MethodVisitor?,
-        private val controller: OpStackController
-) : MethodVisitor(Opcodes.ASM5, mv), Opcodes {
+        private val controller: OpStackController,
+        private val trace: TraceLog.MethodTrace? = null
+) : MethodVisitor(Opcodes.ASM7, mv), Opcodes {
 
     override fun visitCode() {
         super.visitCode()
@@ -36,44 +38,100 @@ open class OpStackMethodVisitor(
 
     override fun visitLabel(label: Label) {
         controller.pushNewLabel(label)
+        trace?.record(TraceEvents.LABEL, -1, 0, 0, label, controller.pseudoLineNo)
         super.visitLabel(label)
     }
 
+    override fun visitLineNumber(line: Int, start: Label) {
+        trace?.record(TraceEvents.LINE_NUMBER, -1, line, 0, start, controller.pseudoLineNo)
+        super.visitLineNumber(line, start)
+    }
+
     override fun visitInsn(opcode: Int) {
+        trace?.record(TraceEvents.INSN, opcode, 0, 0, null, controller.pseudoLineNo)
         super.visitInsn(opcode)
         controller.pushConstInsnOperation(opcode)
     }
 
     override fun visitIntInsn(opcode: Int, operand: Int) {
+        trace?.record(TraceEvents.INT_INSN, opcode, operand, 0, null, controller.pseudoLineNo)
         super.visitIntInsn(opcode, operand)
         controller.pushConstInsnOperation(opcode, operand)
     }
 
     override fun visitVarInsn(opcode: Int, `var`: Int) {
+        trace?.record(TraceEvents.VAR_INSN, opcode, `var`, 0, null, controller.pseudoLineNo)
         super.visitVarInsn(opcode, `var`)
-        val operation = ASMifier.OPCODES[opcode]
-        if (isLoad(operation)) controller.pushVarInsnLoad(`var`, operation)
-        else if (isStore(operation)) controller.pushVarInsnStore(`var`, operation)
+        when (OpcodeTable[opcode].kind) {
+            OpcodeKinds.LOAD -> controller.pushVarInsnLoad(`var`, opcode)
+            OpcodeKinds.STORE -> controller.pushVarInsnStore(`var`, opcode)
+            else -> Unit
+        }
     }
 
     override fun visitJumpInsn(opcode: Int, label: Label) {
+        trace?.record(TraceEvents.JUMP_INSN, opcode, 0, 0, label, controller.pseudoLineNo)
         super.visitJumpInsn(opcode, label)
-        val jumpOp = ASMifier.OPCODES[opcode]
-        when {
-            ASMParserUtil.NULLARY_JUMPS.contains(jumpOp) -> controller.pushNullaryJumps(label)
-            ASMParserUtil.UNARY_JUMPS.contains(jumpOp) -> controller.pushUnaryJump(jumpOp, label)
-            ASMParserUtil.BINARY_JUMPS.contains(jumpOp) -> controller.pushBinaryJump(jumpOp, label)
+        when (OpcodeTable[opcode].kind) {
+            OpcodeKinds.NULLARY_JUMP -> controller.pushNullaryJumps(label)
+            OpcodeKinds.UNARY_JUMP -> controller.pushUnaryJump(opcode, label)
+            OpcodeKinds.BINARY_JUMP -> controller.pushBinaryJump(opcode, label)
+            else -> Unit
         }
     }
 
     override fun visitLdcInsn(`val`: Any) {
+        // Only integer constants fit the record, other constants are traced by their hash code
+        trace?.record(TraceEvents.LDC_INSN, Opcodes.LDC, `val` as? Int ?: `val`.hashCode(), 0, null, controller.pseudoLineNo)
         super.visitLdcInsn(`val`)
         controller.pushConstInsnOperation(`val`)
     }
 
     override fun visitIincInsn(`var`: Int, increment: Int) {
+        trace?.record(TraceEvents.IINC_INSN, Opcodes.IINC, `var`, increment, null, controller.pseudoLineNo)
         super.visitIincInsn(`var`, increment)
         controller.pushVarInc(`var`, increment)
     }
 
+    override fun visitMethodInsn(opcode: Int, owner: String, name: String, desc: String, itf: Boolean) {
+        trace?.record(TraceEvents.METHOD_INSN, opcode, memberHash(owner, name, desc), if (itf) 1 else 0, null, controller.pseudoLineNo)
+        super.visitMethodInsn(opcode, owner, name, desc, itf)
+    }
+
+    override fun visitFieldInsn(opcode: Int, owner: String, name: String, descriptor: String) {
+        trace?.record(TraceEvents.FIELD_INSN, opcode, memberHash(owner, name, descriptor), 0, null, controller.pseudoLineNo)
+        super.visitFieldInsn(opcode, owner, name, descriptor)
+    }
+
+    override fun visitTypeInsn(opcode: Int, type: String) {
+        trace?.record(TraceEvents.TYPE_INSN, opcode, type.hashCode(), 0, null, controller.pseudoLineNo)
+        super.visitTypeInsn(opcode, type)
+    }
+
+    override fun visitInvokeDynamicInsn(name: String, descriptor: String, bootstrapMethodHandle: Handle, vararg bootstrapMethodArguments: Any) {
+        trace?.record(TraceEvents.INVOKE_DYNAMIC_INSN, Opcodes.INVOKEDYNAMIC, 31 * name.hashCode() + descriptor.hashCode(),
+                bootstrapMethodHandle.hashCode(), null, controller.pseudoLineNo)
+        super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, *bootstrapMethodArguments)
+    }
+
+    override fun visitTableSwitchInsn(min: Int, max: Int, dflt: Label, vararg labels: Label) {
+        trace?.record(TraceEvents.TABLE_SWITCH_INSN, Opcodes.TABLESWITCH, min, max, dflt, controller.pseudoLineNo)
+        super.visitTableSwitchInsn(min, max, dflt, *labels)
+    }
+
+    override fun visitLookupSwitchInsn(dflt: Label, keys: IntArray, labels: Array<out Label>) {
+        trace?.record(TraceEvents.LOOKUP_SWITCH_INSN, Opcodes.LOOKUPSWITCH, keys.size, keys.contentHashCode(), dflt, controller.pseudoLineNo)
+        super.visitLookupSwitchInsn(dflt, keys, labels)
+    }
+
+    override fun visitMultiANewArrayInsn(descriptor: String, numDimensions: Int) {
+        trace?.record(TraceEvents.MULTI_ANEW_ARRAY_INSN, Opcodes.MULTIANEWARRAY, descriptor.hashCode(), numDimensions, null, controller.pseudoLineNo)
+        super.visitMultiANewArrayInsn(descriptor, numDimensions)
+    }
+
+    companion object {
+        // Member references are traced by a hash of their owner, name and descriptor so that records keep a fixed size
+        private fun memberHash(owner: String, name: String, descriptor: String) =
+                31 * (31 * owner.hashCode() + name.hashCode()) + descriptor.hashCode()
+    }
 }
\ No newline at end of file
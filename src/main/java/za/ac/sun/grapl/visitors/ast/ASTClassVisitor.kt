@@ -19,15 +19,23 @@ import org.objectweb.asm.ClassVisitor
 import org.objectweb.asm.MethodVisitor
 import org.objectweb.asm.Opcodes
 import za.ac.sun.grapl.controllers.ASTController
+import za.ac.sun.grapl.domain.enums.VisitorPasses
 import za.ac.sun.grapl.domain.meta.ClassInfo
 import za.ac.sun.grapl.domain.meta.MetaDataCollector
+import za.ac.sun.grapl.trace.TraceLog
 
-class ASTClassVisitor(private val classMetaController: MetaDataCollector, private val astController: ASTController) : ClassVisitor(Opcodes.ASM5), Opcodes {
+class ASTClassVisitor(
+        private val classMetaController: MetaDataCollector,
+        private val astController: ASTController,
+        private val trace: TraceLog? = null
+) : ClassVisitor(Opcodes.ASM7), Opcodes {
 
     private var classInfo: ClassInfo? = null
+    private var internalName = ""
 
     override fun visit(version: Int, access: Int, name: String, signature: String?, superName: String, interfaces: Array<String>) {
         super.visit(version, access, name, signature, superName, interfaces)
+        internalName = name
         classInfo = classMetaController.getClass(name)
         astController.projectClassData(classInfo!!)
         // TODO: Could create MEMBER vertex from here to declare member classes
@@ -37,7 +45,7 @@ class ASTClassVisitor(private val classMetaController: MetaDataCollector, privat
         val mv = super.visitMethod(access, name, descriptor, signature, exceptions)
         val methodInfo = classInfo!!.getMethod(name, descriptor, access)!!
         astController.pushNewMethod(methodInfo)
-        return ASTMethodVisitor(mv, astController)
+        return ASTMethodVisitor(mv, astController, trace?.beginMethod(VisitorPasses.AST, internalName, name, descriptor))
     }
 
 }
\ No newline at end of file
@@ -20,14 +20,14 @@ import org.objectweb.asm.Label
 import org.objectweb.asm.MethodVisitor
 import org.objectweb.asm.Opcodes
 import za.ac.sun.grapl.controllers.ASTController
+import za.ac.sun.grapl.trace.TraceLog
 import za.ac.sun.grapl.visitors.OpStackMethodVisitor
 
 class ASTMethodVisitor(
         mv: MethodVisitor?,
-        private val astController: ASTController
-) : OpStackMethodVisitor(mv, astController), Opcodes {
-
-    private val logger = LogManager.getLogger()
+        private val astController: ASTController,
+        trace: TraceLog.MethodTrace? = null
+) : OpStackMethodVisitor(mv, astController, trace), Opcodes {
 
     override fun visitCode() {
         super.visitCode()
@@ -46,7 +46,11 @@ class ASTMethodVisitor(
 
     override fun visitEnd() {
         super.visitEnd()
-        logger.debug(astController.toString())
+        logger.debug("{}", astController)
+        astController.endMethod()
     }
 
+    companion object {
+        private val logger = LogManager.getLogger(ASTMethodVisitor::class.java)
+    }
 }
\ No newline at end of file
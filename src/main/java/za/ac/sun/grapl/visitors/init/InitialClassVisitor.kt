@@ -19,27 +19,33 @@ import org.apache.logging.log4j.LogManager
 import org.objectweb.asm.ClassVisitor
 import org.objectweb.asm.MethodVisitor
 import org.objectweb.asm.Opcodes
+import za.ac.sun.grapl.domain.enums.VisitorPasses
 import za.ac.sun.grapl.domain.meta.ClassInfo
 import za.ac.sun.grapl.domain.meta.MetaDataCollector
+import za.ac.sun.grapl.trace.TraceLog
 
-class InitialClassVisitor(private val classMetaController: MetaDataCollector) : ClassVisitor(Opcodes.ASM5), Opcodes {
+class InitialClassVisitor(
+        private val classMetaController: MetaDataCollector,
+        private val trace: TraceLog? = null
+) : ClassVisitor(Opcodes.ASM7), Opcodes {
 
-    private val logger = LogManager.getLogger()
     private var classInfo: ClassInfo? = null
+    private var internalName = ""
 
     override fun visit(version: Int, access: Int, name: String, signature: String?, superName: String, interfaces: Array<String>) {
         super.visit(version, access, name, signature, superName, interfaces)
+        internalName = name
         classInfo = classMetaController.putClass(name, access, version)
         logger.debug("")
-        logger.debug(classInfo.toString() + " extends " + superName + " {")
+        logger.debug("{} extends {} {", classInfo, superName)
     }
 
     override fun visitMethod(access: Int, name: String, descriptor: String, signature: String?, exceptions: Array<String>?): MethodVisitor {
         val mv = super.visitMethod(access, name, descriptor, signature, exceptions)
         val methodInfo = classInfo!!.addMethod(name, descriptor, access, -1)
         logger.debug("")
-        logger.debug("\t $methodInfo {")
-        return InitialMethodVisitor(mv, methodInfo)
+        logger.debug("\t {} {", methodInfo)
+        return InitialMethodVisitor(mv, methodInfo, trace?.beginMethod(VisitorPasses.INITIAL, internalName, name, descriptor))
     }
 
     override fun visitEnd() {
@@ -48,4 +54,7 @@ class InitialClassVisitor(private val classMetaController: MetaDataCollector) :
         super.visitEnd()
     }
 
+    companion object {
+        private val logger = LogManager.getLogger(InitialClassVisitor::class.java)
+    }
 }
\ No newline at end of file
@@ -24,94 +24,106 @@ import org.objectweb.asm.util.ASMifier
 import za.ac.sun.grapl.controllers.MethodInfoController
 import za.ac.sun.grapl.domain.stack.operand.ConstantItem
 import za.ac.sun.grapl.domain.stack.operand.VariableItem
+import za.ac.sun.grapl.util.OpcodeTable
+import za.ac.sun.grapl.trace.TraceLog
 import za.ac.sun.grapl.visitors.OpStackMethodVisitor
 
 class InitialMethodVisitor(
         mv: MethodVisitor?,
-        private val methodInfoController: MethodInfoController
-) : OpStackMethodVisitor(mv, methodInfoController), Opcodes {
-
-    private val logger = LogManager.getLogger()
+        private val methodInfoController: MethodInfoController,
+        trace: TraceLog.MethodTrace? = null
+) : OpStackMethodVisitor(mv, methodInfoController, trace), Opcodes {
 
     private var currentLabel: Label? = null
 
     override fun visitInsn(opcode: Int) {
-        logger.debug("\t  " + ASMifier.OPCODES[opcode] + " (visitInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t  {} (visitInsn)", ASMifier.OPCODES[opcode])
         super.visitInsn(opcode)
     }
 
     override fun visitIntInsn(opcode: Int, operand: Int) {
-        logger.debug("\t  " + ASMifier.OPCODES[opcode] + " " + operand + " (visitIntInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t  {} {} (visitIntInsn)", ASMifier.OPCODES[opcode], operand)
         super.visitIntInsn(opcode, operand)
     }
 
     override fun visitVarInsn(opcode: Int, `var`: Int) {
-        logger.debug("\t" + ASMifier.OPCODES[opcode] + " -> " + `var` + " (visitVarInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t{} -> {} (visitVarInsn)", ASMifier.OPCODES[opcode], `var`)
         methodInfoController.addVariable(`var`)
         super.visitVarInsn(opcode, `var`)
     }
 
     override fun visitJumpInsn(opcode: Int, label: Label) {
-        logger.debug("\t  " + ASMifier.OPCODES[opcode] + " " + label + " (visitJumpInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t  {} {} (visitJumpInsn)", ASMifier.OPCODES[opcode], label)
         val operandStack = methodInfoController.operandStack
-        if ("GOTO" == ASMifier.OPCODES[opcode] && !operandStack.isEmpty() && (operandStack.peek() is ConstantItem || operandStack.peek() is VariableItem))
-            methodInfoController.addTernaryPair(ASMifier.OPCODES[opcode], label, currentLabel!!)
+        val jumpOp = OpcodeTable[opcode].name
+        if (opcode == Opcodes.GOTO && !operandStack.isEmpty() && (operandStack.peek() is ConstantItem || operandStack.peek() is VariableItem))
+            methodInfoController.addTernaryPair(jumpOp, label, currentLabel!!)
         else
-            methodInfoController.addJump(ASMifier.OPCODES[opcode], label, currentLabel!!)
+            methodInfoController.addJump(jumpOp, label, currentLabel!!)
         super.visitJumpInsn(opcode, label)
     }
 
     override fun visitIincInsn(`var`: Int, increment: Int) {
-        logger.debug("\t  VAR: $`var` INC: $increment (visitIincInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t  VAR: {} INC: {} (visitIincInsn)", `var`, increment)
         super.visitIincInsn(`var`, increment)
     }
 
     override fun visitLabel(label: Label) {
-        logger.debug("")
-        logger.debug("\t$label (label)")
+        if (logger.isDebugEnabled) {
+            logger.debug("")
+            logger.debug("\t{} (label)", label)
+        }
         currentLabel = label
         super.visitLabel(label)
     }
 
     override fun visitFieldInsn(opcode: Int, owner: String, name: String, descriptor: String) {
-        logger.debug("\t" + ASMifier.OPCODES[opcode] + owner + " " + name + " " + descriptor + " (visitFieldInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t{}{} {} {} (visitFieldInsn)", ASMifier.OPCODES[opcode], owner, name, descriptor)
         super.visitFieldInsn(opcode, owner, name, descriptor)
     }
 
     override fun visitLocalVariable(name: String, descriptor: String, signature: String?, start: Label, end: Label, index: Int) {
-        logger.debug("\tDEBUG INFO: $descriptor $name -> ($start; $end) (visitLocalVariable)")
+        if (logger.isDebugEnabled) logger.debug("\tDEBUG INFO: {} {} -> ({}; {}) (visitLocalVariable)", descriptor, name, start, end)
         methodInfoController.addVarDebugInfo(index, name, descriptor, start, end)
         super.visitLocalVariable(name, descriptor, signature, start, end, index)
     }
 
     override fun visitLineNumber(line: Int, start: Label) {
-        logger.debug("\t  $line $start (visitLineNumber)")
+        if (logger.isDebugEnabled) logger.debug("\t  {} {} (visitLineNumber)", line, start)
         if (Integer.valueOf(-1) == methodInfoController.lineNumber) methodInfoController.lineNumber = line - 1
         super.visitLineNumber(line, start)
     }
 
     override fun visitLdcInsn(`val`: Any) {
-        logger.debug("\t  $`val` (visitLdcInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t  {} (visitLdcInsn)", `val`)
         super.visitLdcInsn(`val`)
     }
 
     override fun visitInvokeDynamicInsn(name: String, descriptor: String, bootstrapMethodHandle: Handle, vararg bootstrapMethodArguments: Any) {
-        logger.debug("\t  $name INC: $descriptor $bootstrapMethodHandle (visitInvokeDynamicInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t  {} INC: {} {} (visitInvokeDynamicInsn)", name, descriptor, bootstrapMethodHandle)
         super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, *bootstrapMethodArguments)
     }
 
     override fun visitTypeInsn(opcode: Int, type: String) {
-        logger.debug("\t  " + ASMifier.OPCODES[opcode] + " " + type + " (visitTypeInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t  {} {} (visitTypeInsn)", ASMifier.OPCODES[opcode], type)
         super.visitTypeInsn(opcode, type)
     }
 
     override fun visitMethodInsn(opcode: Int, owner: String, name: String, desc: String, itf: Boolean) {
-        logger.debug("\t  " + ASMifier.OPCODES[opcode] + " " + owner + " " + name + " " + desc + " (visitMethodInsn)")
+        if (logger.isDebugEnabled) logger.debug("\t  {} {} {} {} (visitMethodInsn)", ASMifier.OPCODES[opcode], owner, name, desc)
         super.visitMethodInsn(opcode, owner, name, desc, itf)
     }
 
+    override fun visitMaxs(maxStack: Int, maxLocals: Int) {
+        methodInfoController.maxLocals = maxLocals
+        super.visitMaxs(maxStack, maxLocals)
+    }
+
     override fun visitEnd() {
         logger.debug("\t}")
     }
 
+    companion object {
+        private val logger = LogManager.getLogger(InitialMethodVisitor::class.java)
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package za.ac.sun.grapl
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.util.RecordingHook
+import za.ac.sun.grapl.util.ResourceCompilationUtil.fetchClassFiles
+import java.io.File
+import java.nio.file.Files
+
+class CannonInMemoryTest {
+
+    private lateinit var tempDir: File
+
+    @BeforeEach
+    fun setUp() {
+        tempDir = Files.createTempDirectory("j2grapl").toFile()
+        File(tempDir, "Outer.java").writeText("public class Outer { int a = 1; class Inner { int b() { int c = 2; return c; } } }")
+    }
+
+    @AfterEach
+    fun tearDown() {
+        tempDir.deleteRecursively()
+    }
+
+    @Test
+    fun loadSourceInMemoryTest() {
+        val hook = RecordingHook()
+        Cannon(hook).apply {
+            load(File(tempDir, "Outer.java"), true)
+            fire()
+        }
+        Assertions.assertTrue(hook.operations.any { it.contains("Outer\$Inner") })
+        Assertions.assertTrue(fetchClassFiles(tempDir).isEmpty())
+    }
+
+    @Test
+    fun loadDirectoryInMemoryTest() {
+        val inMemory = RecordingHook()
+        Cannon(inMemory).apply {
+            load(tempDir, true)
+            fire()
+        }
+        Assertions.assertTrue(fetchClassFiles(tempDir).isEmpty())
+
+        val onDisk = RecordingHook()
+        Cannon(onDisk).apply {
+            load(tempDir)
+            fire()
+        }
+        Assertions.assertEquals(operationsByClass(onDisk), operationsByClass(inMemory))
+    }
+
+    /**
+     * Splits the operations into those of each class, which starts by registering its meta data, and renumbers the
+     * orders of each class from its file vertex so that the classes can be compared whichever order they were fired in.
+     */
+    private fun operationsByClass(hook: RecordingHook): Map<String, List<List<String>>> {
+        val classes = mutableListOf<MutableList<String>>()
+        hook.operations.forEach { op ->
+            if (op.startsWith("registerMetaData")) classes.add(mutableListOf())
+            classes.last().add(op)
+        }
+        // A class fired more than once shows up as more than one list of operations
+        return classes.groupBy({ ops -> fileVertexOf(ops).groupValues[1] }) { ops ->
+            val base = fileVertexOf(ops).groupValues[2].toInt()
+            ops.map { op -> ORDERS.fold(op) { o, regex -> regex.replace(o) { m -> renumber(m, base) } } }
+        }
+    }
+
+    private fun fileVertexOf(ops: List<String>) = ops.mapNotNull { FILE_VERTEX.find(it) }.first()
+
+    private fun renumber(match: MatchResult, base: Int): String {
+        val sb = StringBuilder(match.value)
+        match.groups.drop(1).filterNotNull().asReversed().forEach { order ->
+            sb.replace(order.range.first - match.range.first, order.range.last - match.range.first + 1,
+                    (order.value.toInt() - base).toString())
+        }
+        return sb.toString()
+    }
+
+    companion object {
+        private val FILE_VERTEX = Regex("FileVertex\\{name='([^']*)', order=(\\d+)}")
+        private val ORDERS = listOf(
+                Regex("order=(\\d+)"),
+                Regex("^joinASTVerticesByOrder (\\d+) (\\d+)"),
+                Regex("^updateASTVertexProperty (?:MethodVertex\\{[^}]*} )?(\\d+)"),
+                Regex("^createAndAssignToBlock .*} (\\d+)$"))
+    }
+}
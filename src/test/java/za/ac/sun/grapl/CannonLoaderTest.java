@@ -32,6 +32,7 @@ public class CannonLoaderTest {
     private static File validClassFile;
     private static File validDirectory;
     private static File validJarFile;
+    private static File validNestedJarFile;
     private static TinkerGraphHook hook;
 
     private static File getTestResource(String dir) {
@@ -45,6 +46,7 @@ public class CannonLoaderTest {
         validSourceFile = getTestResource("cannon_tests/Test1.java");
         validClassFile = getTestResource("cannon_tests/Test2.class");
         validJarFile = getTestResource("cannon_tests/Test3.jar");
+        validNestedJarFile = getTestResource("cannon_tests/Test4.jar");
         validDirectory = getTestResource("cannon_tests/dir_test");
         hook = new TinkerGraphHook.TinkerGraphHookBuilder().build();
         fileCannon = new Cannon(hook);
@@ -116,6 +118,47 @@ public class CannonLoaderTest {
         BasicIntraproceduralTest.testBasic1Structure(g, basic6NamespaceVertex);
     }
 
+    @Test
+    public void validNestedJarTest() throws IOException {
+        GraphTraversalSource g = TinkerGraph.open().traversal();
+        // Test4.jar only contains Test3.jar under lib/
+        fileCannon.load(validNestedJarFile);
+        fileCannon.fire();
+        hook.exportCurrentGraph(TEST_DIR);
+        g.io(TEST_DIR).read().iterate();
+
+        final GraphTraversal<Vertex, Vertex> intraNamespaceTraversal = g.V().has(VertexLabels.NAMESPACE_BLOCK.toString(), "fullName", "intraprocedural");
+        assertTrue(intraNamespaceTraversal.hasNext());
+        final Vertex intraNamespaceVertex = intraNamespaceTraversal.next();
+        assertEquals(6, buildStoreTraversal(g, EdgeLabels.AST, intraNamespaceVertex).count().next());
+    }
+
+    @Test
+    public void validDirectoryParallelTest() throws IOException {
+        fileCannon.load(validDirectory);
+        fileCannon.fireParallel(2);
+        hook.exportCurrentGraph(TEST_DIR);
+    }
+
+    @Test
+    public void validJarParallelTest() throws IOException {
+        GraphTraversalSource g = TinkerGraph.open().traversal();
+        fileCannon.load(validJarFile);
+        fileCannon.fireParallel(2);
+        hook.exportCurrentGraph(TEST_DIR);
+        g.io(TEST_DIR).read().iterate();
+
+        final GraphTraversal<Vertex, Vertex> intraNamespaceTraversal = g.V().has(VertexLabels.NAMESPACE_BLOCK.toString(), "fullName", "intraprocedural");
+        assertTrue(intraNamespaceTraversal.hasNext());
+        final Vertex intraNamespaceVertex = intraNamespaceTraversal.next();
+        assertEquals(6, buildStoreTraversal(g, EdgeLabels.AST, intraNamespaceVertex).count().next());
+    }
+
+    @Test
+    public void fireParallelWithNoWorkersTest() {
+        assertThrows(IllegalArgumentException.class, () -> fileCannon.fireParallel(0));
+    }
+
     @Test
     public void loadNullFileTest() {
         assertThrows(IllegalArgumentException.class, () -> fileCannon.load(null));
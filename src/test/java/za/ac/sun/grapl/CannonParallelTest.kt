@@ -0,0 +1,83 @@
+package za.ac.sun.grapl
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.domain.models.vertices.FileVertex
+import za.ac.sun.grapl.domain.models.vertices.NamespaceBlockVertex
+import za.ac.sun.grapl.hooks.IHook
+import za.ac.sun.grapl.util.ClassGenerator
+import za.ac.sun.grapl.util.RecordingHook
+import java.io.File
+import java.nio.file.Files
+
+class CannonParallelTest {
+
+    private lateinit var classDir: File
+
+    @BeforeEach
+    fun setUp() {
+        classDir = Files.createTempDirectory("j2grapl-parallel").toFile()
+        ClassGenerator.writeClasses(classDir, 50)
+    }
+
+    @AfterEach
+    fun tearDown() {
+        classDir.deleteRecursively()
+    }
+
+    @Test
+    fun parallelMatchesSequentialTest() {
+        val sequential = RecordingHook()
+        Cannon(sequential).apply {
+            load(classDir)
+            fire()
+        }
+        val parallel = RecordingHook()
+        Cannon(parallel).apply {
+            load(classDir)
+            fireParallel(4)
+        }
+        Assertions.assertEquals(sequential.operations.size, parallel.operations.size)
+        val vertices = parallel.operations.flatMap { op -> VERTEX.findAll(op).map { it.value }.toList() }.toSet()
+        val orders = vertices.mapNotNull { v -> ORDER.find(v)?.groupValues?.get(1)?.toInt() }.toSet()
+        // No two vertices share an order and each class takes up exactly the orders it needs, leaving no gaps
+        Assertions.assertEquals(vertices.count { ORDER.containsMatchIn(it) }, orders.size)
+        Assertions.assertEquals(orders.size, parallel.maxOrder())
+    }
+
+    @Test
+    fun failedClassStopsWorkersTest() {
+        val recorded = RecordingHook()
+        val hook = object : IHook by recorded {
+            override fun joinFileVertexTo(fileVertex: FileVertex, namespaceBlockVertex: NamespaceBlockVertex) {
+                if (fileVertex.name == "C10") throw IllegalArgumentException("Rejected ${fileVertex.name}")
+                recorded.joinFileVertexTo(fileVertex, namespaceBlockVertex)
+            }
+        }
+        val cannon = Cannon(hook).apply { load(classDir) }
+        Assertions.assertThrows(IllegalArgumentException::class.java) { cannon.fireParallel(4) }
+        // No worker is still writing once the failure is thrown
+        val written = recorded.operations.size
+        Thread.sleep(200)
+        Assertions.assertEquals(written, recorded.operations.size)
+        Assertions.assertTrue(recorded.operations.none { it.contains("gen.C10.") })
+    }
+
+    @Test
+    fun outOfOrdersTest() {
+        val recorded = RecordingHook()
+        val hook = object : IHook by recorded {
+            override fun maxOrder() = Int.MAX_VALUE - 3
+        }
+        val cannon = Cannon(hook).apply { load(classDir) }
+        Assertions.assertThrows(IllegalStateException::class.java) { cannon.fireParallel(2) }
+        Assertions.assertTrue(recorded.operations.isEmpty())
+    }
+
+    companion object {
+        private val VERTEX = Regex("\\w+Vertex\\{[^}]*}")
+        private val ORDER = Regex("order=(\\d+)")
+    }
+}
@@ -0,0 +1,63 @@
+package za.ac.sun.grapl
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.domain.meta.MetaDataCollector
+import za.ac.sun.grapl.domain.models.vertices.MetaDataVertex
+import za.ac.sun.grapl.hooks.IHook
+import za.ac.sun.grapl.util.ClassGenerator
+import za.ac.sun.grapl.util.RecordingHook
+import za.ac.sun.grapl.util.ResourceCompilationUtil.streamClassBytes
+import java.io.File
+import java.util.*
+
+class CannonStreamTest {
+
+    private fun getTestResource(name: String) =
+            File(Objects.requireNonNull(javaClass.classLoader.getResource("cannon_tests/$name")).file)
+
+    @Test
+    fun streamMatchesLoadTest() {
+        val loaded = RecordingHook()
+        Cannon(loaded).apply {
+            load(getTestResource("Test3.jar"))
+            fire()
+        }
+        val streamed = RecordingHook()
+        Cannon(streamed).fire(streamClassBytes(getTestResource("Test3.jar")), 1)
+        Assertions.assertFalse(loaded.operations.isEmpty())
+        Assertions.assertEquals(loaded.operations, streamed.operations)
+    }
+
+    @Test
+    fun streamDirectoryTest() {
+        val hook = RecordingHook()
+        Cannon(hook).fire(streamClassBytes(getTestResource("Test2.class").parentFile))
+        Assertions.assertTrue(hook.operations.any { it.startsWith("addFileVertex") || it.startsWith("joinFileVertexTo") })
+    }
+
+    @Test
+    fun discoveryFailureTest() {
+        val classes = object : Iterator<ByteArray> {
+            override fun hasNext() = true
+            override fun next(): ByteArray = throw IllegalStateException("Unreadable class")
+        }
+        Assertions.assertThrows(IllegalStateException::class.java) { Cannon(RecordingHook()).fire(classes) }
+        Assertions.assertThrows(IllegalArgumentException::class.java) { Cannon(RecordingHook()).fire(classes, 0) }
+    }
+
+    @Test
+    fun streamDropsClassMetaDataTest() {
+        val collector = MetaDataCollector()
+        var largest = 0
+        val hook = object : IHook by RecordingHook() {
+            override fun registerMetaData(metaDataVertex: MetaDataVertex) {
+                largest = maxOf(largest, collector.size)
+            }
+        }
+        val classes = (0 until 500).asSequence().map { ClassGenerator.generate("gen/C$it") }.iterator()
+        Cannon(hook).fire(classes, 4, collector)
+        Assertions.assertEquals(1, largest)
+        Assertions.assertEquals(0, collector.size)
+    }
+}
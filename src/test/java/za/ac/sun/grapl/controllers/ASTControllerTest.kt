@@ -0,0 +1,48 @@
+package za.ac.sun.grapl.controllers
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.Cannon
+import za.ac.sun.grapl.domain.meta.ClassInfo
+import za.ac.sun.grapl.util.RecordingHook
+import java.io.File
+import java.util.*
+
+class ASTControllerTest {
+
+    private lateinit var hook: RecordingHook
+
+    @BeforeEach
+    fun setUp() {
+        hook = RecordingHook()
+    }
+
+    private fun getTestResource(name: String) =
+            File(Objects.requireNonNull(javaClass.classLoader.getResource("cannon_tests/$name")).file)
+
+    @Test
+    fun noGraphQueriesWhileBuildingASTTest() {
+        val cannon = Cannon(hook)
+        cannon.load(getTestResource("Test3.jar"))
+        cannon.load(getTestResource("Test2.class"))
+        cannon.fire()
+        Assertions.assertFalse(hook.operations.isEmpty())
+        // Only the initial max order is queried from the graph
+        Assertions.assertEquals(1, hook.queries)
+    }
+
+    @Test
+    fun orderRangeExceededTest() {
+        val controller = ASTController(hook).resetOrder(10, 12)
+        Assertions.assertEquals(2, controller.remainingOrders)
+        // A namespace chain of three blocks and the file vertex need four orders
+        Assertions.assertThrows(IllegalStateException::class.java) {
+            controller.projectClassData(ClassInfo("Test", "a.b.c", 1, 52))
+        }
+        Assertions.assertEquals(12, controller.order)
+        Assertions.assertTrue(hook.maxOrder() < 12)
+        Assertions.assertThrows(IllegalStateException::class.java) { controller.resetOrder(0, 5).advanceOrder(6) }
+    }
+
+}
@@ -0,0 +1,134 @@
+package za.ac.sun.grapl.controllers
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.objectweb.asm.Label
+import za.ac.sun.grapl.domain.meta.JumpInfo
+import java.util.*
+
+class MethodInfoControllerTest {
+
+    private lateinit var methodInfo: MethodInfoController
+
+    @BeforeEach
+    fun setUp() {
+        methodInfo = MethodInfoController("test", "()V", 1)
+    }
+
+    @Test
+    fun labelLookupTest() {
+        // Each pass over the method is a replay which creates new labels
+        val passes = List(2) { List(LABEL_COUNT) { Label() } }
+        passes.forEach { labels ->
+            methodInfo.initializeMethod()
+            labels.forEach { methodInfo.pushNewLabel(it) }
+        }
+        for (i in 0 until LABEL_COUNT) {
+            Assertions.assertEquals(i + 1, methodInfo.getPseudoLineNumber(passes[0][i]))
+            Assertions.assertEquals(i + 1, methodInfo.getPseudoLineNumber(passes[1][i]))
+        }
+        Assertions.assertEquals(-1, methodInfo.getPseudoLineNumber(Label()))
+        Assertions.assertEquals(LABEL_COUNT, methodInfo.pseudoLineNo)
+    }
+
+    @Test
+    fun clearLinesTest() {
+        val label = Label()
+        methodInfo.pushNewLabel(label)
+        methodInfo.clear()
+        Assertions.assertEquals(0, methodInfo.pseudoLineNo)
+        Assertions.assertEquals(-1, methodInfo.getPseudoLineNumber(label))
+        methodInfo.pushNewLabel(Label())
+        Assertions.assertEquals(1, methodInfo.pseudoLineNo)
+    }
+
+    @Test
+    fun jumpHeavyMethodTest() {
+        val jumpLabels = List(BRANCH_COUNT) { Label() }
+        val destLabels = List(BRANCH_COUNT) { Label() }
+        for (i in 0 until BRANCH_COUNT) {
+            methodInfo.pushNewLabel(jumpLabels[i])
+            Assertions.assertTrue(methodInfo.addJump("IFEQ", destLabels[i], jumpLabels[i]))
+            methodInfo.pushNewLabel(destLabels[i])
+        }
+        // The AST pass replays the method with new labels
+        val replayedDestLabels = List(BRANCH_COUNT) { Label() }
+        methodInfo.initializeMethod()
+        for (i in 0 until BRANCH_COUNT) {
+            methodInfo.pushNewLabel(Label())
+            methodInfo.pushNewLabel(replayedDestLabels[i])
+        }
+        for (i in 0 until BRANCH_COUNT) {
+            val jumpLine = 2 * i + 1
+            val destLine = jumpLine + 1
+            val associatedJumps = methodInfo.getAssociatedJumps(destLine)
+            Assertions.assertEquals(1, associatedJumps.size)
+            Assertions.assertSame(jumpLabels[i], associatedJumps[0].currLabel)
+            Assertions.assertTrue(methodInfo.getAssociatedJumps(jumpLine).isEmpty())
+            Assertions.assertEquals(jumpLine, methodInfo.findJumpLineBasedOnDestLabel(destLabels[i]))
+            Assertions.assertEquals(jumpLine, methodInfo.findJumpLineBasedOnDestLabel(replayedDestLabels[i]))
+            Assertions.assertTrue(methodInfo.isJumpVertexAssociatedWithGivenLine(destLine, jumpLine))
+        }
+    }
+
+    @Test
+    fun forwardAndBackwardJumpOrderTest() {
+        val ifLabel = Label()
+        val loopLabel = Label()
+        val gotoLabel = Label()
+        methodInfo.pushNewLabel(ifLabel)
+        methodInfo.addJump("IFEQ", loopLabel, ifLabel)
+        methodInfo.pushNewLabel(loopLabel)
+        methodInfo.pushNewLabel(gotoLabel)
+        methodInfo.addJump("GOTO", loopLabel, gotoLabel)
+        Assertions.assertEquals(listOf("IFEQ", "GOTO"), methodInfo.getAssociatedJumps(2).map { it.jumpOp })
+        Assertions.assertTrue(methodInfo.getAssociatedJumps(3).isEmpty())
+    }
+
+    @Test
+    fun variableSlotTest() {
+        val start = Label()
+        val end = Label()
+        val wideSlot = OpStackController.INITIAL_LOCALS * 4
+        listOf(0, 2, 2, wideSlot).forEach { methodInfo.addVariable(it) }
+        methodInfo.addVarDebugInfo(2, "i", "I", start, end)
+        methodInfo.addVarDebugInfo(wideSlot, "l", "J", start, end)
+        Assertions.assertEquals("i", methodInfo.getVariable(2)?.debugName)
+        Assertions.assertEquals("J", methodInfo.getVariable(wideSlot)?.descriptor)
+        Assertions.assertNull(methodInfo.getVariable(1))
+        Assertions.assertNull(methodInfo.getVariable(wideSlot + 1))
+        val variable = methodInfo.getOrPutVariable(wideSlot, "J")
+        Assertions.assertSame(variable, methodInfo.getOrPutVariable(wideSlot, "J"))
+        Assertions.assertEquals(1, methodInfo.variables.size)
+        methodInfo.clear()
+        Assertions.assertTrue(methodInfo.variables.isEmpty())
+    }
+
+    @Test
+    fun ternaryPairTest() {
+        val ifLabel = Label()
+        val gotoLabel = Label()
+        val elseLabel = Label()
+        val endLabel = Label()
+        methodInfo.pushNewLabel(ifLabel)
+        methodInfo.addJump("IF_ICMPLE", elseLabel, ifLabel)
+        methodInfo.pushNewLabel(gotoLabel)
+        methodInfo.addTernaryPair("GOTO", endLabel, gotoLabel)
+        methodInfo.pushNewLabel(elseLabel)
+        methodInfo.pushNewLabel(endLabel)
+
+        val ternaryPair = methodInfo.getAssociatedTernaryJump(2)
+        Assertions.assertNotNull(ternaryPair)
+        Assertions.assertSame(ifLabel, ternaryPair!!.first.currLabel)
+        Assertions.assertSame(gotoLabel, ternaryPair.second.currLabel)
+        Assertions.assertNull(methodInfo.getAssociatedTernaryJump(1))
+        Assertions.assertEquals(ternaryPair, methodInfo.getAssociatedTernaryJump(1, Stack()))
+        Assertions.assertNull(methodInfo.getAssociatedTernaryJump(1, Stack<Pair<JumpInfo, JumpInfo>>().apply { push(ternaryPair) }))
+    }
+
+    companion object {
+        private const val LABEL_COUNT = 5000
+        private const val BRANCH_COUNT = 5000
+    }
+}
@@ -0,0 +1,69 @@
+package za.ac.sun.grapl.domain.meta
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class MetaDataCollectorTest {
+
+    private lateinit var collector: MetaDataCollector
+
+    @BeforeEach
+    fun setUp() {
+        collector = MetaDataCollector()
+    }
+
+    @Test
+    fun getClassTest() {
+        val classInfo = collector.putClass("za/ac/sun/$STRING_1", INT_1, INT_1)
+        assertEquals(STRING_1, classInfo.className)
+        assertEquals("za.ac.sun", classInfo.namespace)
+        assertSame(classInfo, collector.getClass("za/ac/sun/$STRING_1"))
+        assertNull(collector.getClass(STRING_1))
+        assertNull(collector.getClass("za/ac/$STRING_1"))
+    }
+
+    @Test
+    fun getClassWithCollidingHashTest() {
+        // "Aa" and "BB" share the same hash code
+        val classInfo1 = collector.putClass(COLLIDING_1, INT_1, INT_1)
+        val classInfo2 = collector.putClass(COLLIDING_2, INT_1, INT_1)
+        assertEquals(COLLIDING_1.hashCode(), COLLIDING_2.hashCode())
+        assertSame(classInfo1, collector.getClass(COLLIDING_1))
+        assertSame(classInfo2, collector.getClass(COLLIDING_2))
+        assertEquals(2, collector.size)
+    }
+
+    @Test
+    fun getMethodWithCollidingHashTest() {
+        val classInfo = collector.putClass(STRING_1, INT_1, INT_1)
+        val methodInfo1 = classInfo.addMethod(COLLIDING_1, "()V", INT_1, -1)
+        val methodInfo2 = classInfo.addMethod(COLLIDING_2, "()V", INT_1, -1)
+        assertSame(methodInfo1, classInfo.getMethod(COLLIDING_1, "()V", INT_1))
+        assertSame(methodInfo2, classInfo.getMethod(COLLIDING_2, "()V", INT_1))
+        assertNull(classInfo.getMethod(COLLIDING_1, "()I", INT_1))
+        assertNull(classInfo.getMethod(COLLIDING_1, "()V", INT_2))
+    }
+
+    @Test
+    fun persistAcrossClassesTest() {
+        for (i in 0 until CLASS_COUNT) {
+            collector.putClass("pack/Class$i", INT_1, INT_1).addMethod("method$i", "()V", INT_1, -1)
+        }
+        assertEquals(CLASS_COUNT, collector.size)
+        for (i in 0 until CLASS_COUNT) {
+            assertNotNull(collector.getClass("pack/Class$i")!!.getMethod("method$i", "()V", INT_1))
+        }
+        collector.clear()
+        assertEquals(0, collector.size)
+    }
+
+    companion object {
+        const val INT_1 = 1
+        const val INT_2 = 2
+        const val STRING_1 = "TEST1"
+        const val COLLIDING_1 = "Aa"
+        const val COLLIDING_2 = "BB"
+        const val CLASS_COUNT = 10000
+    }
+}
@@ -0,0 +1,57 @@
+package za.ac.sun.grapl.domain.stack
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.domain.stack.operand.ConstantItem
+import za.ac.sun.grapl.domain.stack.operand.OperatorItem
+import za.ac.sun.grapl.domain.stack.operand.VariableItem
+import java.util.*
+
+class OperandStackTest {
+
+    private lateinit var stack: OperandStack
+
+    @BeforeEach
+    fun setUp() {
+        stack = OperandStack()
+    }
+
+    @Test
+    fun pushAndPopTest() {
+        Assertions.assertTrue(stack.isEmpty())
+        val items = List(100) { i -> ConstantItem(i.toString(), "INTEGER") }
+        items.forEach { stack.push(it) }
+        Assertions.assertEquals(100, stack.size)
+        Assertions.assertSame(items.last(), stack.peek())
+        items.asReversed().forEach { Assertions.assertSame(it, stack.pop()) }
+        Assertions.assertTrue(stack.isEmpty())
+    }
+
+    @Test
+    fun emptyStackTest() {
+        Assertions.assertThrows(EmptyStackException::class.java) { stack.pop() }
+        Assertions.assertThrows(EmptyStackException::class.java) { stack.peek() }
+    }
+
+    @Test
+    fun removeTest() {
+        stack.push(VAR_ITEM)
+        stack.push(CONST_ITEM)
+        stack.push(OPERATOR_ITEM)
+        stack.push(ConstantItem(CONST_ITEM.id, CONST_ITEM.type))
+        Assertions.assertTrue(stack.remove(ConstantItem(CONST_ITEM.id, CONST_ITEM.type)))
+        Assertions.assertFalse(stack.remove(ConstantItem("2", "INTEGER")))
+        Assertions.assertEquals(3, stack.size)
+        Assertions.assertEquals("[$VAR_ITEM, $OPERATOR_ITEM, $CONST_ITEM]", stack.toString())
+        stack.clear()
+        Assertions.assertTrue(stack.isEmpty())
+        Assertions.assertEquals("[]", stack.toString())
+    }
+
+    companion object {
+        private val VAR_ITEM = VariableItem("1", "INTEGER")
+        private val CONST_ITEM = ConstantItem("1", "INTEGER")
+        private val OPERATOR_ITEM = OperatorItem("ADD", "INTEGER")
+    }
+}
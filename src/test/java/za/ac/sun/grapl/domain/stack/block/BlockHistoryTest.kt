@@ -0,0 +1,67 @@
+package za.ac.sun.grapl.domain.stack.block
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.objectweb.asm.Label
+import za.ac.sun.grapl.domain.enums.JumpState
+import java.util.*
+
+class BlockHistoryTest {
+
+    private lateinit var history: BlockHistory
+
+    @BeforeEach
+    fun setUp() {
+        history = BlockHistory()
+    }
+
+    @Test
+    fun emptyHistoryTest() {
+        Assertions.assertTrue(history.isEmpty())
+        Assertions.assertNull(history.getLastJump())
+        Assertions.assertFalse(history.containsIfCmp())
+        Assertions.assertThrows(EmptyStackException::class.java) { history.pop() }
+        Assertions.assertThrows(EmptyStackException::class.java) { history.peek() }
+    }
+
+    @Test
+    fun lastJumpTest() {
+        val ifCmp = IfCmpBlock(0, Label(), Label(), JumpState.IF_ROOT)
+        val body = NestedBodyBlock(1, Label(), JumpState.IF_BODY)
+        val goto = GotoBlock(2, Label(), Label(), JumpState.IF_ROOT)
+        history.push(ifCmp)
+        history.push(body)
+        Assertions.assertSame(ifCmp, history.getLastJump())
+        history.push(goto)
+        Assertions.assertSame(goto, history.getLastJump())
+        Assertions.assertSame(body, history[1])
+        val jumps = mutableListOf<JumpBlock>()
+        history.copyJumpsTo(jumps)
+        Assertions.assertEquals(listOf(ifCmp, goto), jumps)
+        Assertions.assertSame(goto, history.pop())
+        Assertions.assertSame(ifCmp, history.getLastJump())
+        Assertions.assertTrue(history.containsIfCmp())
+        history.pop()
+        history.pop()
+        Assertions.assertNull(history.getLastJump())
+        Assertions.assertFalse(history.containsIfCmp())
+    }
+
+    @Test
+    fun deepHistoryTest() {
+        val blocks = List(1000) { i ->
+            if (i % 2 == 0) IfCmpBlock(i, Label(), Label(), JumpState.IF_ROOT)
+            else NestedBodyBlock(i, Label(), JumpState.IF_BODY)
+        }
+        blocks.forEach { history.push(it) }
+        Assertions.assertEquals(1000, history.size)
+        Assertions.assertEquals(500, history.jumpCount)
+        Assertions.assertSame(blocks[998], history.getLastJump())
+        Assertions.assertSame(blocks[0], history.getJump(0))
+        history.clear()
+        Assertions.assertTrue(history.isEmpty())
+        Assertions.assertEquals(0, history.jumpCount)
+        Assertions.assertNull(history.getLastJump())
+    }
+}
@@ -0,0 +1,62 @@
+package za.ac.sun.grapl.domain.stack.block
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.objectweb.asm.Label
+import za.ac.sun.grapl.domain.enums.JumpState
+
+class JumpRegistryTest {
+
+    private lateinit var registry: JumpRegistry
+
+    @BeforeEach
+    fun setUp() {
+        registry = JumpRegistry()
+        listOf(TARGET_IFCMP_1, TARGET_IFCMP_2, TARGET_GOTO_1).forEach { registry.add(it) }
+    }
+
+    @Test
+    fun addTest() {
+        Assertions.assertFalse(registry.add(TARGET_IFCMP_1))
+        Assertions.assertEquals(3, registry.size)
+    }
+
+    @Test
+    fun getAssociatedJumpsTest() {
+        Assertions.assertTrue(registry.getAssociatedJumps(Label()).isEmpty())
+        Assertions.assertEquals(listOf(TARGET_IFCMP_1, TARGET_GOTO_1), registry.getAssociatedJumps(DEST_LABEL_1))
+        Assertions.assertEquals(listOf(TARGET_IFCMP_2), registry.getAssociatedJumps(DEST_LABEL_2))
+    }
+
+    @Test
+    fun isJumpDestinationTest() {
+        Assertions.assertFalse(registry.isJumpDestination(Label()))
+        Assertions.assertTrue(registry.isJumpDestination(DEST_LABEL_1))
+        Assertions.assertTrue(registry.isJumpDestination(DEST_LABEL_2))
+    }
+
+    @Test
+    fun findByOrderTest() {
+        Assertions.assertEquals(TARGET_IFCMP_1, registry.findByOrder(2))
+        Assertions.assertEquals(TARGET_IFCMP_2, registry.findByOrder(3))
+        Assertions.assertNull(registry.findByOrder(4))
+    }
+
+    @Test
+    fun getLastJumpTest() {
+        Assertions.assertEquals(TARGET_IFCMP_2, registry.getLastJump())
+        registry.clear()
+        Assertions.assertNull(registry.getLastJump())
+        Assertions.assertFalse(registry.isJumpDestination(DEST_LABEL_1))
+        Assertions.assertEquals(0, registry.size)
+    }
+
+    companion object {
+        private val DEST_LABEL_1: Label = Label()
+        private val DEST_LABEL_2: Label = Label()
+        private val TARGET_IFCMP_1: IfCmpBlock = IfCmpBlock(2, Label(), DEST_LABEL_1, JumpState.METHOD_BODY)
+        private val TARGET_IFCMP_2: IfCmpBlock = IfCmpBlock(3, Label(), DEST_LABEL_2, JumpState.METHOD_BODY)
+        private val TARGET_GOTO_1: GotoBlock = GotoBlock(3, Label(), DEST_LABEL_1, JumpState.METHOD_BODY)
+    }
+}
@@ -0,0 +1,40 @@
+package za.ac.sun.grapl.metrics
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class HistogramTest {
+
+    @Test
+    fun percentileTest() {
+        val histogram = Histogram()
+        Assertions.assertEquals(0, histogram.percentile(0.5))
+        for (i in 1..1000L) histogram.record(i * 1000)
+        Assertions.assertEquals(1000, histogram.totalCount)
+        Assertions.assertEquals(1_000_000, histogram.maxValue)
+        Assertions.assertEquals(500_500.0, histogram.mean)
+        assertWithinBucket(500_000, histogram.percentile(0.5))
+        assertWithinBucket(990_000, histogram.percentile(0.99))
+        Assertions.assertEquals(1_000_000, histogram.percentile(1.0))
+        Assertions.assertThrows(IllegalArgumentException::class.java) { histogram.percentile(1.5) }
+    }
+
+    @Test
+    fun smallAndExtremeValuesTest() {
+        val histogram = Histogram()
+        histogram.record(-1)
+        histogram.record(3)
+        histogram.record(Long.MAX_VALUE)
+        Assertions.assertEquals(0, histogram.percentile(0.0))
+        Assertions.assertEquals(3, histogram.percentile(0.5))
+        Assertions.assertEquals(Long.MAX_VALUE, histogram.percentile(1.0))
+        histogram.reset()
+        Assertions.assertEquals(0, histogram.totalCount)
+        Assertions.assertEquals(0, histogram.maxValue)
+    }
+
+    private fun assertWithinBucket(expected: Long, actual: Long) {
+        Assertions.assertTrue(actual >= expected && actual <= expected + expected / Histogram.SUB_BUCKETS,
+                "Expected $actual to be within a bucket of $expected")
+    }
+}
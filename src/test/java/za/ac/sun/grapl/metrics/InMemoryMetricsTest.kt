@@ -0,0 +1,78 @@
+package za.ac.sun.grapl.metrics
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.Cannon
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.enums.VertexLabels
+import za.ac.sun.grapl.domain.enums.VisitorPasses
+import za.ac.sun.grapl.sinks.CountingHook
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.nio.file.Files
+import java.util.*
+
+class InMemoryMetricsTest {
+
+    private fun getTestResource(name: String) =
+            File(Objects.requireNonNull(javaClass.classLoader.getResource("cannon_tests/$name")).file)
+
+    @Test
+    fun fireMetricsTest() {
+        val metrics = InMemoryMetrics()
+        val counts = CountingHook()
+        Cannon(counts, null, null, metrics).apply {
+            load(getTestResource("Test3.jar"))
+            load(getTestResource("Test2.class"))
+            fire()
+        }
+        Assertions.assertEquals(counts.vertexCount(VertexLabels.FILE), metrics.classes)
+        Assertions.assertTrue(metrics.totalBytesRead > Files.size(getTestResource("Test2.class").toPath()))
+        Assertions.assertTrue(metrics.methods >= metrics.classes)
+        Assertions.assertTrue(metrics.classesPerSecond > 0)
+        Assertions.assertEquals(metrics.classes, metrics.passLatency(VisitorPasses.INITIAL).totalCount)
+        Assertions.assertEquals(metrics.classes, metrics.passLatency(VisitorPasses.AST).totalCount)
+        Assertions.assertEquals(counts.totalVertices, metrics.totalVertices)
+        Assertions.assertEquals(counts.vertexCount(VertexLabels.METHOD), metrics.vertexCount(VertexLabels.METHOD))
+        Assertions.assertEquals(counts.edgeCount(EdgeLabels.AST), metrics.edgeCount(EdgeLabels.AST))
+        Assertions.assertTrue(metrics.hookOperations.contains("createAndAssignToBlock"))
+        Assertions.assertTrue(metrics.hookLatency("createAndAssignToBlock")!!.totalCount > 0)
+        Assertions.assertEquals(metrics.classes, metrics.snapshot()["classes"])
+
+        metrics.reset()
+        Assertions.assertEquals(0, metrics.classes)
+        Assertions.assertTrue(metrics.hookOperations.isEmpty())
+    }
+
+    @Test
+    fun parallelFireMetricsTest() {
+        val metrics = InMemoryMetrics()
+        val counts = CountingHook()
+        Cannon(counts, null, null, metrics).apply {
+            load(getTestResource("Test3.jar"))
+            load(getTestResource("Test2.class"))
+            fireParallel(4)
+        }
+        // The files of each class are forgotten once it is written without being counted again
+        Assertions.assertEquals(counts.vertexCount(VertexLabels.FILE), metrics.classes)
+        Assertions.assertEquals(counts.vertexCount(VertexLabels.FILE), metrics.vertexCount(VertexLabels.FILE))
+        Assertions.assertEquals(counts.totalVertices, metrics.totalVertices)
+    }
+
+    @Test
+    fun jmxMetricsTest() {
+        val server = ManagementFactory.getPlatformMBeanServer()
+        JmxMetrics("test").use { metrics ->
+            Assertions.assertTrue(server.isRegistered(metrics.objectName))
+            Cannon(CountingHook(), null, null, metrics).apply {
+                load(getTestResource("Test2.class"))
+                fire()
+            }
+            Assertions.assertEquals(1L, server.getAttribute(metrics.objectName, "classes"))
+            Assertions.assertTrue(server.getMBeanInfo(metrics.objectName).attributes.any { it.name == "hook.createVertex.p99" })
+            server.invoke(metrics.objectName, "reset", null, null)
+            Assertions.assertEquals(0L, server.getAttribute(metrics.objectName, "classes"))
+        }
+        Assertions.assertFalse(server.isRegistered(JmxMetrics.run { javax.management.ObjectName("$DOMAIN:type=$TYPE,name=test") }))
+    }
+}
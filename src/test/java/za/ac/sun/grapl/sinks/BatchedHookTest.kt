@@ -0,0 +1,148 @@
+package za.ac.sun.grapl.sinks
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.Cannon
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.models.vertices.BlockVertex
+import za.ac.sun.grapl.hooks.IHook
+import za.ac.sun.grapl.metrics.InMemoryMetrics
+import za.ac.sun.grapl.util.RecordingHook
+import java.io.File
+import java.util.*
+
+class BatchedHookTest {
+
+    private lateinit var standIn: RecordingHook
+
+    @BeforeEach
+    fun setUp() {
+        standIn = RecordingHook()
+    }
+
+    @Test
+    fun bufferUntilFlushTest() {
+        val hook = BatchedHook(standIn)
+        hook.createVertex(BLOCK_1)
+        hook.createVertex(BLOCK_2)
+        hook.joinASTVerticesByOrder(BLOCK_1.order, BLOCK_2.order, EdgeLabels.AST)
+        Assertions.assertTrue(standIn.operations.isEmpty())
+        Assertions.assertEquals(3, hook.pendingOperations)
+        hook.flush()
+        Assertions.assertEquals(0, hook.pendingOperations)
+        Assertions.assertEquals(listOf(
+                "createVertex $BLOCK_1",
+                "createVertex $BLOCK_2",
+                "joinASTVerticesByOrder 1 2 AST"
+        ), standIn.operations)
+    }
+
+    @Test
+    fun flushOnFullBatchTest() {
+        val hook = BatchedHook(standIn, 2)
+        hook.createVertex(BLOCK_1)
+        Assertions.assertTrue(standIn.operations.isEmpty())
+        hook.createVertex(BLOCK_2)
+        Assertions.assertEquals(2, standIn.operations.size)
+        Assertions.assertEquals(0, hook.pendingOperations)
+    }
+
+    @Test
+    fun bulkWriteTest() {
+        val bulk = object : BulkHook, IHook by standIn {
+            override fun beginBulk() {
+                standIn.operations.add("beginBulk")
+            }
+
+            override fun endBulk() {
+                standIn.operations.add("endBulk")
+            }
+        }
+        val hook = BatchedHook(bulk, 2)
+        hook.createVertex(BLOCK_1)
+        hook.createVertex(BLOCK_2)
+        hook.joinASTVerticesByOrder(BLOCK_1.order, BLOCK_2.order, EdgeLabels.AST)
+        hook.flush()
+        hook.flush()
+        Assertions.assertEquals(listOf(
+                "beginBulk",
+                "createVertex $BLOCK_1",
+                "createVertex $BLOCK_2",
+                "endBulk",
+                "beginBulk",
+                "joinASTVerticesByOrder 1 2 AST",
+                "endBulk"
+        ), standIn.operations)
+    }
+
+    @Test
+    fun flushBeforeQueryTest() {
+        val hook = BatchedHook(standIn)
+        hook.createVertex(BLOCK_2)
+        Assertions.assertTrue(hook.isASTVertex(BLOCK_2.order))
+        Assertions.assertEquals(BLOCK_2.order, hook.maxOrder())
+        hook.joinASTVerticesByOrder(BLOCK_1.order, BLOCK_2.order, EdgeLabels.AST)
+        Assertions.assertTrue(hook.areASTVerticesJoinedByEdge(BLOCK_1.order, BLOCK_2.order, EdgeLabels.AST))
+    }
+
+    @Test
+    fun flushOnMethodEndTest() {
+        val hook = BatchedHook(standIn)
+        hook.createVertex(BLOCK_1)
+        hook.endMethod()
+        Assertions.assertEquals(1, standIn.operations.size)
+        val deferredHook = BatchedHook(standIn, BatchedHook.DEFAULT_BATCH_SIZE, false)
+        deferredHook.createVertex(BLOCK_2)
+        deferredHook.endMethod()
+        Assertions.assertEquals(1, standIn.operations.size)
+        Assertions.assertEquals(1, deferredHook.pendingOperations)
+    }
+
+    @Test
+    fun endMethodThroughDecoratorsTest() {
+        val batched = BatchedHook(standIn)
+        val chain = SynchronizedHook(MetricsHook(batched, InMemoryMetrics()))
+        chain.createVertex(BLOCK_1)
+        Assertions.assertEquals(1, batched.pendingOperations)
+        chain.endMethod()
+        Assertions.assertEquals(0, batched.pendingOperations)
+        chain.createVertex(BLOCK_2)
+        chain.flush()
+        Assertions.assertEquals(2, standIn.operations.size)
+    }
+
+    @Test
+    fun clearGraphDiscardsPendingOperationsTest() {
+        val hook = BatchedHook(standIn)
+        hook.createVertex(BLOCK_1)
+        hook.clearGraph()
+        hook.flush()
+        Assertions.assertTrue(standIn.operations.isEmpty())
+    }
+
+    @Test
+    fun invalidBatchSizeTest() {
+        Assertions.assertThrows(IllegalArgumentException::class.java) { BatchedHook(standIn, 0) }
+    }
+
+    @Test
+    fun cannonProjectionTest() {
+        val classFile = File(Objects.requireNonNull(javaClass.classLoader.getResource("cannon_tests/Test2.class")).file)
+        val directCannon = Cannon(standIn)
+        directCannon.load(classFile)
+        directCannon.fire()
+
+        val batchedStandIn = RecordingHook()
+        val batchedCannon = Cannon(BatchedHook(batchedStandIn, 3))
+        batchedCannon.load(classFile)
+        batchedCannon.fire()
+        Assertions.assertFalse(standIn.operations.isEmpty())
+        Assertions.assertEquals(standIn.operations, batchedStandIn.operations)
+    }
+
+    companion object {
+        private val BLOCK_1 = BlockVertex("STORE", 1, 1, "INTEGER", 1)
+        private val BLOCK_2 = BlockVertex("ADD", 2, 1, "INTEGER", 1)
+    }
+}
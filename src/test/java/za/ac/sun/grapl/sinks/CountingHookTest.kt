@@ -0,0 +1,111 @@
+package za.ac.sun.grapl.sinks
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.Cannon
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.enums.VertexLabels
+import za.ac.sun.grapl.domain.models.vertices.BlockVertex
+import za.ac.sun.grapl.domain.models.vertices.FileVertex
+import za.ac.sun.grapl.domain.models.vertices.MetaDataVertex
+import za.ac.sun.grapl.domain.models.vertices.MethodVertex
+import za.ac.sun.grapl.domain.models.vertices.NamespaceBlockVertex
+import za.ac.sun.grapl.util.RecordingHook
+import java.io.File
+import java.util.*
+
+class CountingHookTest {
+
+    private lateinit var hook: CountingHook
+
+    @BeforeEach
+    fun setUp() {
+        hook = CountingHook()
+    }
+
+    private fun getTestResource(name: String) =
+            File(Objects.requireNonNull(javaClass.classLoader.getResource("cannon_tests/$name")).file)
+
+    @Test
+    fun countByLabelTest() {
+        val file = FileVertex("Test", 0)
+        hook.registerMetaData(MetaDataVertex("Java", "8"))
+        hook.registerMetaData(MetaDataVertex("Java", "8"))
+        hook.joinNamespaceBlocks(NamespaceBlockVertex("za", "za", 1), NamespaceBlockVertex("ac", "za.ac", 2))
+        hook.joinFileVertexTo(file, NamespaceBlockVertex("ac", "za.ac", 3))
+        hook.createVertex(BlockVertex("STORE", 4, 1, "INTEGER", 1))
+        hook.createVertex(BlockVertex("ADD", 5, 1, "INTEGER", 1))
+        hook.joinASTVerticesByOrder(4, 5, EdgeLabels.AST)
+        Assertions.assertEquals(1, hook.vertexCount(VertexLabels.META_DATA))
+        Assertions.assertEquals(2, hook.vertexCount(VertexLabels.NAMESPACE_BLOCK))
+        Assertions.assertEquals(1, hook.vertexCount(VertexLabels.FILE))
+        Assertions.assertEquals(2, hook.vertexCount(VertexLabels.BLOCK))
+        Assertions.assertEquals(6, hook.totalVertices)
+        Assertions.assertEquals(3, hook.edgeCount(EdgeLabels.AST))
+        Assertions.assertEquals(mapOf(EdgeLabels.AST to 3L), hook.edgeCounts())
+        Assertions.assertTrue(hook.isASTVertex(5))
+        Assertions.assertEquals(5, hook.maxOrder())
+        hook.clearGraph()
+        Assertions.assertEquals(0, hook.totalVertices)
+        Assertions.assertTrue(hook.vertexCounts().isEmpty())
+    }
+
+    @Test
+    fun countMatchesRecordedOperationsTest() {
+        val recorded = RecordingHook()
+        Cannon(recorded).apply {
+            load(getTestResource("Test3.jar"))
+            fire()
+        }
+        Cannon(hook).apply {
+            load(getTestResource("Test3.jar"))
+            fire()
+        }
+        val methods = recorded.operations.count { it.startsWith("joinFileVertexTo") && it.contains("MethodVertex") }
+        Assertions.assertTrue(methods > 0)
+        Assertions.assertEquals(methods.toLong(), hook.vertexCount(VertexLabels.METHOD))
+        val astEdges = recorded.operations.count { op ->
+            op.startsWith("createAndA") || op.startsWith("joinFileVertexTo") || op.startsWith("joinNamespaceBlocks") ||
+                    op.startsWith("joinASTVerticesByOrder") && op.endsWith(" AST")
+        }
+        Assertions.assertEquals(astEdges.toLong(), hook.edgeCount(EdgeLabels.AST))
+    }
+
+    @Test
+    fun interleavedFilesTest() {
+        val first = FileVertex("First", 0)
+        val second = FileVertex("Second", 1)
+        hook.joinFileVertexTo(first, MethodVertex("a", "First.a", "()V", 1, 2))
+        hook.joinFileVertexTo(second, MethodVertex("b", "Second.b", "()V", 1, 3))
+        hook.joinFileVertexTo(first, MethodVertex("c", "First.c", "()V", 2, 4))
+        Assertions.assertEquals(2, hook.vertexCount(VertexLabels.FILE))
+        Assertions.assertEquals(3, hook.vertexCount(VertexLabels.METHOD))
+    }
+
+    @Test
+    fun parallelCountMatchesSequentialTest() {
+        Cannon(hook).apply {
+            load(getTestResource("Test3.jar"))
+            fire()
+        }
+        val parallel = CountingHook()
+        Cannon(parallel).apply {
+            load(getTestResource("Test3.jar"))
+            fireParallel(4)
+        }
+        Assertions.assertTrue(hook.vertexCount(VertexLabels.FILE) > 1)
+        Assertions.assertEquals(hook.vertexCounts(), parallel.vertexCounts())
+        Assertions.assertEquals(hook.edgeCounts(), parallel.edgeCounts())
+    }
+
+    @Test
+    fun noOpHookFireTest() {
+        val noOpHook = NoOpHook()
+        Cannon(noOpHook).apply {
+            load(getTestResource("Test3.jar"))
+            fire()
+        }
+        Assertions.assertEquals(0, noOpHook.maxOrder())
+    }
+}
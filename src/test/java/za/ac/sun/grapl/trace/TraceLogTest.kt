@@ -0,0 +1,145 @@
+package za.ac.sun.grapl.trace
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.objectweb.asm.Handle
+import org.objectweb.asm.Label
+import org.objectweb.asm.Opcodes
+import za.ac.sun.grapl.Cannon
+import za.ac.sun.grapl.controllers.MethodInfoController
+import za.ac.sun.grapl.domain.enums.TraceEvents
+import za.ac.sun.grapl.domain.enums.VisitorPasses
+import za.ac.sun.grapl.sinks.NoOpHook
+import za.ac.sun.grapl.visitors.OpStackMethodVisitor
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.util.*
+
+class TraceLogTest {
+
+    private lateinit var traceFile: File
+
+    @BeforeEach
+    fun setUp() {
+        traceFile = Files.createTempFile("j2grapl", ".trace").toFile()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        traceFile.delete()
+    }
+
+    private fun getTestResource(name: String) =
+            File(Objects.requireNonNull(javaClass.classLoader.getResource("cannon_tests/$name")).file)
+
+    @Test
+    fun traceBothPassesTest() {
+        TraceLog(traceFile).use { trace ->
+            Cannon(NoOpHook(), null, null, null, trace).apply {
+                load(getTestResource("Test2.class"))
+                fire()
+            }
+        }
+        val records = TraceDecoder.decode(traceFile).records
+        val methods = records.filter { it.event == TraceEvents.METHOD }
+        Assertions.assertTrue(methods.any { it.pass == VisitorPasses.INITIAL && it.method!!.endsWith(".main([Ljava/lang/String;)V") })
+        Assertions.assertTrue(methods.any { it.pass == VisitorPasses.AST && it.method!!.endsWith(".main([Ljava/lang/String;)V") })
+        // Both passes see the same instructions of every method
+        val instructions = records.filter { it.event != TraceEvents.METHOD }
+                .groupBy { it.pass }
+                .mapValues { (_, events) -> events.map { Triple(it.method, it.event, it.opcode) } }
+        Assertions.assertFalse(instructions[VisitorPasses.INITIAL].isNullOrEmpty())
+        Assertions.assertEquals(instructions[VisitorPasses.INITIAL], instructions[VisitorPasses.AST])
+    }
+
+    @Test
+    fun roundTripTest() {
+        val label = Label()
+        TraceLog(traceFile).use { trace ->
+            trace.beginMethod(VisitorPasses.INITIAL, "a/b/Ü", "run", "(I)V").apply {
+                record(TraceEvents.LABEL, -1, 0, 0, label, 1)
+                record(TraceEvents.IINC_INSN, Opcodes.IINC, 1, -3, null, 1)
+                record(TraceEvents.JUMP_INSN, Opcodes.GOTO, 0, 0, label, 1)
+            }
+        }
+        val trace = TraceDecoder.decode(traceFile)
+        Assertions.assertEquals(0, trace.dropped)
+        Assertions.assertEquals(listOf(TraceEvents.METHOD, TraceEvents.LABEL, TraceEvents.IINC_INSN, TraceEvents.JUMP_INSN),
+                trace.records.map { it.event })
+        trace.records.forEach { Assertions.assertEquals("a/b/Ü.run(I)V", it.method) }
+        val iinc = trace.records[2]
+        Assertions.assertEquals(Opcodes.IINC, iinc.opcode)
+        Assertions.assertEquals(1, iinc.operand)
+        Assertions.assertEquals(-3, iinc.operand2)
+        Assertions.assertEquals(-1, iinc.labelId)
+        Assertions.assertEquals(-1, trace.records[1].opcode)
+        Assertions.assertEquals(trace.records[1].labelId, trace.records[3].labelId)
+    }
+
+    @Test
+    fun traceReferenceAndSwitchInstructionsTest() {
+        val dflt = Label()
+        val case = Label()
+        TraceLog(traceFile).use { trace ->
+            val method = trace.beginMethod(VisitorPasses.INITIAL, "A", "a", "()V")
+            OpStackMethodVisitor(null, MethodInfoController("a", "()V", Opcodes.ACC_STATIC), method).apply {
+                visitCode()
+                visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/List", "size", "()I", true)
+                visitFieldInsn(Opcodes.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;")
+                visitTypeInsn(Opcodes.NEW, "java/lang/Object")
+                visitInvokeDynamicInsn("run", "()Ljava/lang/Runnable;",
+                        Handle(Opcodes.H_INVOKESTATIC, "A", "bootstrap", "()V", false))
+                visitTableSwitchInsn(3, 5, dflt, case, case, case)
+                visitLookupSwitchInsn(dflt, intArrayOf(1, 10), arrayOf(case, case))
+                visitMultiANewArrayInsn("[[I", 2)
+            }
+        }
+        val records = TraceDecoder.decode(traceFile).records.drop(1)
+        Assertions.assertEquals(listOf(TraceEvents.METHOD_INSN, TraceEvents.FIELD_INSN, TraceEvents.TYPE_INSN,
+                TraceEvents.INVOKE_DYNAMIC_INSN, TraceEvents.TABLE_SWITCH_INSN, TraceEvents.LOOKUP_SWITCH_INSN,
+                TraceEvents.MULTI_ANEW_ARRAY_INSN), records.map { it.event })
+        Assertions.assertEquals(listOf(Opcodes.INVOKEINTERFACE, Opcodes.GETSTATIC, Opcodes.NEW, Opcodes.INVOKEDYNAMIC,
+                Opcodes.TABLESWITCH, Opcodes.LOOKUPSWITCH, Opcodes.MULTIANEWARRAY), records.map { it.opcode })
+        Assertions.assertEquals(1, records[0].operand2)
+        Assertions.assertEquals("java/lang/Object".hashCode(), records[2].operand)
+        Assertions.assertEquals(Pair(3, 5), Pair(records[4].operand, records[4].operand2))
+        Assertions.assertEquals(2, records[5].operand)
+        Assertions.assertEquals(records[4].labelId, records[5].labelId)
+        Assertions.assertEquals(2, records[6].operand2)
+    }
+
+    @Test
+    fun manyLabelsTest() {
+        val labels = List(300) { Label() }
+        TraceLog(traceFile).use { trace ->
+            trace.beginMethod(VisitorPasses.AST, "A", "a", "()V").apply {
+                labels.forEach { record(TraceEvents.LABEL, -1, 0, 0, it, 0) }
+                labels.asReversed().forEach { record(TraceEvents.JUMP_INSN, Opcodes.GOTO, 0, 0, it, 0) }
+            }
+        }
+        val records = TraceDecoder.decode(traceFile).records
+        Assertions.assertEquals((0 until 300).toList(), records.filter { it.event == TraceEvents.LABEL }.map { it.labelId })
+        Assertions.assertEquals((299 downTo 0).toList(), records.filter { it.event == TraceEvents.JUMP_INSN }.map { it.labelId })
+    }
+
+    @Test
+    fun ringWrapTest() {
+        TraceLog(traceFile, 16).use { trace ->
+            val method = trace.beginMethod(VisitorPasses.AST, "A", "a", "()V")
+            for (i in 0 until 100) method.record(TraceEvents.VAR_INSN, Opcodes.ILOAD, i, 0, null, i)
+        }
+        val records = TraceDecoder.decode(traceFile).records
+        Assertions.assertEquals((84 until 100).toList(), records.map { it.operand })
+        Assertions.assertEquals(records.first().seq + 15, records.last().seq)
+        Assertions.assertNull(records.first().method)
+    }
+
+    @Test
+    fun notATraceTest() {
+        traceFile.writeText("not a trace")
+        Assertions.assertThrows(IOException::class.java) { TraceDecoder.decode(traceFile) }
+    }
+}
@@ -24,6 +24,7 @@ import za.ac.sun.grapl.util.ASMParserUtil.obtainParameters
 import za.ac.sun.grapl.util.ASMParserUtil.parseAndFlipEquality
 import za.ac.sun.grapl.util.ASMParserUtil.parseEquality
 import za.ac.sun.grapl.util.ASMParserUtil.parseJumpAssociation
+import za.ac.sun.grapl.util.ASMParserUtil.parseMethodDescriptor
 import za.ac.sun.grapl.util.ASMParserUtil.parseOperator
 import java.util.*
 
@@ -46,6 +47,18 @@ class ASMParserUtilTest {
         Assertions.assertEquals("[Ljava/util/Double", obtainMethodReturnType("(IIB)[Ljava/util/Double;"))
     }
 
+    @Test
+    fun testParseMethodDescriptor() {
+        val descriptor = parseMethodDescriptor("([Ljava/util/String;J)Ljava/util/Double;")
+        Assertions.assertEquals(listOf("[Ljava/util/String", "J"), descriptor.parameters)
+        Assertions.assertEquals(listOf("[String", "LONG"), descriptor.readableParameters)
+        Assertions.assertEquals(listOf(EvaluationStrategies.BY_REFERENCE, EvaluationStrategies.BY_VALUE), descriptor.parameterEvaluationStrategies)
+        Assertions.assertEquals("Ljava/util/Double", descriptor.returnType)
+        Assertions.assertEquals("Double", descriptor.readableReturnType)
+        Assertions.assertEquals(EvaluationStrategies.BY_SHARING, descriptor.returnEvaluationStrategy)
+        Assertions.assertSame(descriptor, parseMethodDescriptor("([Ljava/util/String;J)Ljava/util/Double;"))
+    }
+
     @Test
     fun testDetermineEvaluationStrategy() {
         Assertions.assertEquals(determineEvaluationStrategy("I", true), EvaluationStrategies.BY_VALUE)
@@ -0,0 +1,74 @@
+package za.ac.sun.grapl.util
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.Cannon
+import za.ac.sun.grapl.controllers.ASTController
+import java.io.File
+import java.nio.file.Files
+import java.util.*
+
+class ASTFragmentCacheTest {
+
+    private lateinit var cacheDir: File
+    private lateinit var cache: ASTFragmentCache
+
+    @BeforeEach
+    fun setUp() {
+        cacheDir = Files.createTempDirectory("j2grapl-fragments").toFile()
+        cache = ASTFragmentCache(cacheDir, "test")
+    }
+
+    @AfterEach
+    fun tearDown() {
+        cacheDir.deleteRecursively()
+    }
+
+    private fun getTestResource(name: String) =
+            File(Objects.requireNonNull(javaClass.classLoader.getResource("cannon_tests/$name")).file)
+
+    private fun fireWithCache(hook: RecordingHook) = Cannon(hook, null, cache).apply {
+        load(getTestResource("Test3.jar"))
+        load(getTestResource("Test2.class"))
+        fire()
+    }
+
+    @Test
+    fun replayMatchesVisitTest() {
+        val visited = RecordingHook()
+        fireWithCache(visited)
+        Assertions.assertFalse(cacheDir.listFiles().isNullOrEmpty())
+
+        val replayed = RecordingHook()
+        fireWithCache(replayed)
+        Assertions.assertEquals(visited.operations, replayed.operations)
+    }
+
+    @Test
+    fun replayRelocatesOrdersTest() {
+        val classBytes = Files.readAllBytes(getTestResource("Test2.class").toPath())
+        val hash = IngestionManifest.hash(classBytes)
+        Cannon(RecordingHook(), null, cache).apply {
+            load(getTestResource("Test2.class"))
+            fire()
+        }
+        Assertions.assertTrue(cache.contains(hash))
+
+        val hook = RecordingHook()
+        val orders = cache.replay(hash, hook, 1000)
+        Assertions.assertTrue(orders > 0)
+        Assertions.assertEquals(1000 + orders - 1, hook.maxOrder())
+        Assertions.assertEquals(-1, cache.replay(IngestionManifest.hash(byteArrayOf()), hook, 0))
+        Assertions.assertEquals(-1, ASTFragmentCache(cacheDir, "other").replay(hash, hook, 0))
+    }
+
+    @Test
+    fun defaultVersionTest() {
+        // Built from source, the version of the projection falls back to the hash of the compiled controller
+        Assertions.assertTrue(ASTFragmentCache.DEFAULT_VERSION.startsWith("${ASTController.PROJECTION_VERSION}:"))
+        Assertions.assertTrue(ASTFragmentCache.DEFAULT_VERSION.length > "${ASTController.PROJECTION_VERSION}:".length)
+        Assertions.assertEquals(ASTFragmentCache.DEFAULT_VERSION, ASTFragmentCache(cacheDir).version)
+    }
+}
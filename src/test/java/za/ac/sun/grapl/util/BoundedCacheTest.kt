@@ -0,0 +1,32 @@
+package za.ac.sun.grapl.util
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class BoundedCacheTest {
+
+    @Test
+    fun getOrPutTest() {
+        val cache = BoundedCache<String, String>(2)
+        var computed = 0
+        Assertions.assertEquals("A", cache.getOrPut("a") { computed++; "A" })
+        Assertions.assertEquals("A", cache.getOrPut("a") { computed++; "X" })
+        Assertions.assertEquals(1, computed)
+    }
+
+    @Test
+    fun capacityTest() {
+        val cache = BoundedCache<Int, Int>(2)
+        (0 until 5).forEach { i -> Assertions.assertEquals(i * 2, cache.getOrPut(i) { i * 2 }) }
+        Assertions.assertEquals(2, cache.size)
+        Assertions.assertEquals(-1, cache.getOrPut(4) { -1 })
+        Assertions.assertEquals(0, cache.getOrPut(0) { -1 })
+        cache.clear()
+        Assertions.assertEquals(0, cache.size)
+    }
+
+    @Test
+    fun invalidCapacityTest() {
+        Assertions.assertThrows(IllegalArgumentException::class.java) { BoundedCache<String, String>(0) }
+    }
+}
@@ -0,0 +1,41 @@
+package za.ac.sun.grapl.util
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.Opcodes
+import java.io.File
+
+/**
+ * Generates small classes for tests which need many distinct classes.
+ */
+object ClassGenerator {
+
+    /**
+     * Generates a class with the given internal name declaring a single static method which stores a constant.
+     */
+    fun generate(name: String): ByteArray {
+        val cw = ClassWriter(ClassWriter.COMPUTE_MAXS)
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+        cw.visitMethod(Opcodes.ACC_PUBLIC or Opcodes.ACC_STATIC, "m", "()V", null, null).apply {
+            visitCode()
+            val start = Label()
+            visitLabel(start)
+            visitLineNumber(1, start)
+            visitInsn(Opcodes.ICONST_1)
+            visitVarInsn(Opcodes.ISTORE, 0)
+            visitInsn(Opcodes.RETURN)
+            visitMaxs(0, 0)
+            visitEnd()
+        }
+        cw.visitEnd()
+        return cw.toByteArray()
+    }
+
+    /**
+     * Writes the given number of generated classes named gen/C0, gen/C1, ... as class files under the directory.
+     */
+    fun writeClasses(dir: File, count: Int) {
+        File(dir, "gen").mkdirs()
+        for (i in 0 until count) File(dir, "gen/C$i.class").writeBytes(generate("gen/C$i"))
+    }
+}
@@ -0,0 +1,123 @@
+package za.ac.sun.grapl.util
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.objectweb.asm.ClassReader
+import za.ac.sun.grapl.Cannon
+import java.io.File
+import java.util.*
+import java.util.stream.Stream
+
+class IngestionManifestTest {
+
+    private lateinit var manifestFile: File
+
+    @BeforeEach
+    fun setUp() {
+        manifestFile = File.createTempFile("j2grapl", ".manifest")
+        manifestFile.delete()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        manifestFile.delete()
+    }
+
+    private fun getTestResource(name: String) =
+            File(Objects.requireNonNull(javaClass.classLoader.getResource("cannon_tests/$name")).file)
+
+    @Test
+    fun saveAndLoadTest() {
+        val hash = IngestionManifest.hash(byteArrayOf(1, 2, 3))
+        Assertions.assertEquals(64, hash.length)
+        Assertions.assertEquals(hash, IngestionManifest.hash(byteArrayOf(1, 2, 3)))
+        Assertions.assertNotEquals(hash, IngestionManifest.hash(byteArrayOf(1, 2, 4)))
+        val manifest = IngestionManifest(manifestFile)
+        manifest.record("za/ac/sun/Test", hash)
+        manifest.save()
+        val loaded = IngestionManifest(manifestFile)
+        Assertions.assertEquals(1, loaded.size)
+        Assertions.assertTrue(loaded.isUnchanged("za/ac/sun/Test", hash))
+        Assertions.assertFalse(loaded.isUnchanged("za/ac/sun/Test", IngestionManifest.hash(byteArrayOf())))
+        Assertions.assertFalse(loaded.isUnchanged("za/ac/sun/Other", hash))
+    }
+
+    private fun fireTest2(hook: RecordingHook, manifest: IngestionManifest = IngestionManifest(manifestFile)) =
+            Cannon(hook, manifest).apply {
+                load(getTestResource("Test2.class"))
+                fire()
+            }
+
+    @Test
+    fun skipUnchangedClassesTest() {
+        val hook = RecordingHook()
+        fireTest2(hook)
+        val operations = hook.operations.size
+        Assertions.assertTrue(operations > 0)
+        Assertions.assertTrue(manifestFile.isFile)
+
+        // The graph still holds the previous ingestion
+        fireTest2(hook)
+        Assertions.assertEquals(operations, hook.operations.size)
+    }
+
+    @Test
+    fun refireIntoOtherGraphTest() {
+        fireTest2(RecordingHook())
+        // A fresh graph does not hold the classes recorded in the manifest
+        val freshHook = RecordingHook()
+        fireTest2(freshHook)
+        Assertions.assertFalse(freshHook.operations.isEmpty())
+    }
+
+    @Test
+    fun changedAndRemovedClassesTest() {
+        val hook = RecordingHook()
+        fireTest2(hook)
+        val fired = hook.operations.toList()
+        val className = ClassReader(getTestResource("Test2.class").readBytes()).className
+        val manifest = IngestionManifest(manifestFile).apply {
+            record(className, IngestionManifest.hash(byteArrayOf()))
+            record("removed/Class", IngestionManifest.hash(byteArrayOf()))
+        }
+        Assertions.assertEquals(sortedSetOf(className, "removed/Class"), manifest.staleClasses(emptyMap()))
+        // The graph is cleared rather than projecting the changed class next to its old subgraph
+        fireTest2(hook, manifest)
+        Assertions.assertEquals(fired, hook.operations)
+        Assertions.assertNull(manifest.getHash("removed/Class"))
+        Assertions.assertEquals(1, IngestionManifest(manifestFile).size)
+    }
+
+    @Test
+    fun streamChangedClassTest() {
+        val hook = RecordingHook()
+        fireTest2(hook)
+        val fired = hook.operations.toList()
+        val classBytes = getTestResource("Test2.class").readBytes()
+        val manifest = IngestionManifest(manifestFile).apply {
+            record(ClassReader(classBytes).className, IngestionManifest.hash(byteArrayOf()))
+        }
+        Assertions.assertThrows(IllegalStateException::class.java) {
+            Cannon(hook, manifest).fire(Stream.of(classBytes))
+        }
+        Assertions.assertTrue(hook.operations.isEmpty())
+        Assertions.assertEquals(0, IngestionManifest(manifestFile).size)
+        // Firing again projects every class into the cleared graph
+        Cannon(hook, IngestionManifest(manifestFile)).fire(Stream.of(classBytes))
+        Assertions.assertEquals(fired, hook.operations)
+    }
+
+    @Test
+    fun streamRemovedClassTest() {
+        val hook = RecordingHook()
+        fireTest2(hook)
+        val manifest = IngestionManifest(manifestFile).apply { record("removed/Class", IngestionManifest.hash(byteArrayOf())) }
+        Assertions.assertThrows(IllegalStateException::class.java) {
+            Cannon(hook, manifest).fire(Stream.of(getTestResource("Test2.class").readBytes()))
+        }
+        Assertions.assertTrue(hook.operations.isEmpty())
+        Assertions.assertEquals(0, IngestionManifest(manifestFile).size)
+    }
+}
@@ -0,0 +1,54 @@
+package za.ac.sun.grapl.util
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.objectweb.asm.Opcodes
+import za.ac.sun.grapl.domain.enums.Equality
+import za.ac.sun.grapl.domain.enums.OpcodeKinds
+
+class OpcodeTableTest {
+
+    @Test
+    fun constantTest() {
+        val iconstM1 = OpcodeTable[Opcodes.ICONST_M1]
+        Assertions.assertEquals(OpcodeKinds.CONSTANT, iconstM1.kind)
+        Assertions.assertEquals("-1", iconstM1.constant)
+        Assertions.assertEquals("INTEGER", iconstM1.type)
+        Assertions.assertEquals("LONG", OpcodeTable[Opcodes.LCONST_1].type)
+        Assertions.assertEquals("NULL", OpcodeTable[Opcodes.ACONST_NULL].constant)
+        Assertions.assertEquals("BYTE", OpcodeTable[Opcodes.BIPUSH].type)
+    }
+
+    @Test
+    fun operatorTest() {
+        val dmul = OpcodeTable[Opcodes.DMUL]
+        Assertions.assertEquals(OpcodeKinds.OPERATOR, dmul.kind)
+        Assertions.assertEquals("MUL", dmul.operator)
+        Assertions.assertEquals("DOUBLE", dmul.type)
+        Assertions.assertEquals("UNKNOWN", OpcodeTable[Opcodes.IADD].stackType)
+        Assertions.assertNull(OpcodeTable[Opcodes.RETURN].operator)
+    }
+
+    @Test
+    fun loadAndStoreTest() {
+        Assertions.assertEquals(OpcodeKinds.LOAD, OpcodeTable[Opcodes.ILOAD].kind)
+        Assertions.assertEquals(OpcodeKinds.STORE, OpcodeTable[Opcodes.ASTORE].kind)
+        Assertions.assertEquals("OBJECT", OpcodeTable[Opcodes.ASTORE].stackType)
+        Assertions.assertEquals("LONG", OpcodeTable[Opcodes.LLOAD].stackType)
+        Assertions.assertEquals(OpcodeKinds.OTHER, OpcodeTable[Opcodes.RET].kind)
+    }
+
+    @Test
+    fun jumpTest() {
+        Assertions.assertEquals(OpcodeKinds.NULLARY_JUMP, OpcodeTable[Opcodes.GOTO].kind)
+        Assertions.assertEquals(OpcodeKinds.UNARY_JUMP, OpcodeTable[Opcodes.IFNULL].kind)
+        val ifIcmpGe = OpcodeTable[Opcodes.IF_ICMPGE]
+        Assertions.assertEquals(OpcodeKinds.BINARY_JUMP, ifIcmpGe.kind)
+        Assertions.assertEquals("IF_ICMPGE", ifIcmpGe.name)
+        Assertions.assertEquals("INTEGER", ifIcmpGe.jumpType)
+        Assertions.assertEquals(Equality.GE, ifIcmpGe.equality)
+        Assertions.assertEquals(Equality.LT, ifIcmpGe.flippedEquality)
+        Assertions.assertEquals("OBJECT", OpcodeTable[Opcodes.IF_ACMPNE].jumpType)
+        Assertions.assertEquals(Equality.UNKNOWN, OpcodeTable[Opcodes.GOTO].equality)
+    }
+}
@@ -0,0 +1,94 @@
+package za.ac.sun.grapl.util
+
+import za.ac.sun.grapl.domain.enums.EdgeLabels
+import za.ac.sun.grapl.domain.models.ASTVertex
+import za.ac.sun.grapl.domain.models.GraPLVertex
+import za.ac.sun.grapl.domain.models.MethodDescriptorVertex
+import za.ac.sun.grapl.domain.models.vertices.*
+import za.ac.sun.grapl.hooks.IHook
+import java.util.*
+
+/**
+ * A local stand-in for a graph database hook which records each call it receives and keeps track of the orders of the
+ * AST vertices it has been given so that tests can run without a graph database.
+ */
+class RecordingHook : IHook {
+
+    val operations = mutableListOf<String>()
+    var queries = 0
+        private set
+    private val orders = HashSet<Int>()
+    private val edges = HashSet<Triple<Int, Int, EdgeLabels>>()
+
+    private fun record(operation: String, vararg vertices: GraPLVertex) {
+        operations.add(operation)
+        vertices.filterIsInstance<ASTVertex>().forEach { orders.add(it.order) }
+    }
+
+    override fun registerMetaData(metaDataVertex: MetaDataVertex) = record("registerMetaData $metaDataVertex", metaDataVertex)
+
+    override fun addFileVertex(fileVertex: FileVertex) = record("addFileVertex $fileVertex", fileVertex)
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, methodDescriptorVertex: MethodDescriptorVertex) =
+            record("createAndAddToMethod $methodVertex $methodDescriptorVertex", methodVertex, methodDescriptorVertex)
+
+    override fun createAndAddToMethod(methodVertex: MethodVertex, modifierVertex: ModifierVertex) =
+            record("createAndAddToMethod $methodVertex $modifierVertex", methodVertex, modifierVertex)
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, namespaceBlockVertex: NamespaceBlockVertex) =
+            record("joinFileVertexTo $fileVertex $namespaceBlockVertex", fileVertex, namespaceBlockVertex)
+
+    override fun joinFileVertexTo(fileVertex: FileVertex, methodVertex: MethodVertex) =
+            record("joinFileVertexTo $fileVertex $methodVertex", fileVertex, methodVertex)
+
+    override fun joinNamespaceBlocks(from: NamespaceBlockVertex, to: NamespaceBlockVertex) =
+            record("joinNamespaceBlocks $from $to", from, to)
+
+    override fun createAndAssignToBlock(parentVertex: MethodVertex, newVertex: GraPLVertex) =
+            record("createAndAssignToBlock $parentVertex $newVertex", newVertex)
+
+    override fun createAndAssignToBlock(rootMethod: MethodVertex, newVertex: GraPLVertex, blockOrder: Int) =
+            record("createAndAssignToBlock $rootMethod $newVertex $blockOrder", newVertex)
+
+    override fun createAndAssignToBlock(newVertex: GraPLVertex, blockOrder: Int) =
+            record("createAndAssignToBlock $newVertex $blockOrder", newVertex)
+
+    override fun updateASTVertexProperty(rootMethod: MethodVertex, order: Int, key: String, value: String) =
+            record("updateASTVertexProperty $rootMethod $order $key $value")
+
+    override fun updateASTVertexProperty(order: Int, key: String, value: String) =
+            record("updateASTVertexProperty $order $key $value")
+
+    override fun createVertex(graPLVertex: GraPLVertex) = record("createVertex $graPLVertex", graPLVertex)
+
+    override fun joinASTVerticesByOrder(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels) {
+        record("joinASTVerticesByOrder $blockFrom $blockTo $edgeLabel")
+        edges.add(Triple(blockFrom, blockTo, edgeLabel))
+    }
+
+    override fun areASTVerticesJoinedByEdge(blockFrom: Int, blockTo: Int, edgeLabel: EdgeLabels): Boolean {
+        queries++
+        return edges.contains(Triple(blockFrom, blockTo, edgeLabel))
+    }
+
+    override fun maxOrder(): Int {
+        queries++
+        return if (orders.isEmpty()) 0 else Collections.max(orders)
+    }
+
+    override fun isASTVertex(blockOrder: Int): Boolean {
+        queries++
+        return orders.contains(blockOrder)
+    }
+
+    override fun clearGraph() {
+        operations.clear()
+        queries = 0
+        orders.clear()
+        edges.clear()
+    }
+
+    override fun close() = Unit
+
+    override fun exportCurrentGraph(exportDir: String) = Unit
+}
@@ -0,0 +1,94 @@
+package za.ac.sun.grapl.util
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import za.ac.sun.grapl.util.ResourceCompilationUtil.compileJavaFiles
+import za.ac.sun.grapl.util.ResourceCompilationUtil.compileJavaFilesInMemory
+import za.ac.sun.grapl.util.ResourceCompilationUtil.fetchClassFiles
+import za.ac.sun.grapl.util.ResourceCompilationUtil.readClassBytes
+import java.io.File
+import java.nio.file.Files
+import java.util.*
+
+class ResourceCompilationUtilTest {
+
+    private lateinit var tempDir: File
+
+    @BeforeEach
+    fun setUp() {
+        tempDir = Files.createTempDirectory("j2grapl").toFile()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        tempDir.deleteRecursively()
+    }
+
+    @Test
+    fun fetchClassFilesTest() {
+        Assertions.assertTrue(fetchClassFiles(tempDir).isEmpty())
+        val nestedDir = File(tempDir, "a/b/c").apply { mkdirs() }
+        val expected = listOf(File(tempDir, "A.class"), File(nestedDir, "C.class"), File(nestedDir, "D.class"))
+        expected.forEach { f -> f.writeBytes(ByteArray(1)) }
+        File(nestedDir, "E.java").writeBytes(ByteArray(1))
+        Assertions.assertEquals(expected.toSet(), fetchClassFiles(tempDir).toSet())
+    }
+
+    @Test
+    fun readClassBytesTest() {
+        val random = Random(0)
+        // Covers the empty, pooled buffer and memory-mapped cases
+        listOf(0, 1024, 3 * 1024 * 1024).forEach { size ->
+            val bytes = ByteArray(size).apply { random.nextBytes(this) }
+            val f = File(tempDir, "$size.class").apply { writeBytes(bytes) }
+            Assertions.assertArrayEquals(bytes, readClassBytes(f.toPath()))
+        }
+    }
+
+    @Test
+    fun incrementalCompilationTest() {
+        val source = File(tempDir, "A.java").apply { writeText("public class A { int a() { return B.b(); } }") }
+        File(tempDir, "B.java").writeText("public class B { static int b() { return 1; } }")
+        compileJavaFiles(tempDir)
+        val classFile = File(tempDir, "A.class")
+        Assertions.assertTrue(classFile.isFile)
+        Assertions.assertTrue(File(tempDir, "B.class").isFile)
+        // Up-to-date sources are not compiled again
+        classFile.setLastModified(source.lastModified() + 10000)
+        val compiledAt = classFile.lastModified()
+        compileJavaFiles(tempDir)
+        Assertions.assertEquals(compiledAt, classFile.lastModified())
+        // Sources changed since they were compiled are
+        source.setLastModified(compiledAt + 10000)
+        compileJavaFiles(tempDir)
+        Assertions.assertNotEquals(compiledAt, classFile.lastModified())
+    }
+
+    @Test
+    fun crossPackageCompilationTest() {
+        val packages = listOf("p", "q")
+        packages.forEach { p ->
+            val dir = File(tempDir, p).apply { mkdirs() }
+            for (i in 0 until 40) {
+                val other = packages.first { it != p }
+                File(dir, "C$i.java").writeText("package $p; public class C$i { $other.C$i c; }")
+            }
+        }
+        compileJavaFiles(tempDir)
+        packages.forEach { p -> for (i in 0 until 40) Assertions.assertTrue(File(tempDir, "$p/C$i.class").isFile) }
+    }
+
+    @Test
+    fun compileInMemoryTest() {
+        val source = File(tempDir, "Outer.java")
+        source.writeText("public class Outer { class Inner { } Runnable r = new Runnable() { public void run() { } }; }")
+        val classes = compileJavaFilesInMemory(listOf(source))
+        Assertions.assertEquals(setOf("Outer", "Outer\$Inner", "Outer\$1"), classes.keys)
+        classes.values.forEach { bytes -> Assertions.assertEquals(0xCAFEBABE.toInt(), java.nio.ByteBuffer.wrap(bytes).int) }
+        Assertions.assertTrue(fetchClassFiles(tempDir).isEmpty())
+        File(tempDir, "Broken.java").writeText("public class Broken {")
+        Assertions.assertThrows(java.io.IOException::class.java) { compileJavaFilesInMemory(listOf(File(tempDir, "Broken.java"))) }
+    }
+}